@@ -0,0 +1,62 @@
+package com.battleship.bench;
+
+import com.battleship.common.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Туда-обратно для каждого вида полезной нагрузки: Java-сериализация
+ * (старый протокол) против {@link MessageCodec}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    @Param({"NONE", "STRING", "STRINGS", "INTS", "BOOLEAN", "GAME", "DELTA", "SNAPSHOT"})
+    public String payload;
+
+    private Message message;
+
+    @Setup
+    public void setup() {
+        Game game = new Game("bench");
+        for (int p : new FleetGenerator(1).next()) {
+            game.placePlayerShip(FleetGenerator.row(p), FleetGenerator.col(p),
+                    FleetGenerator.size(p), FleetGenerator.vertical(p));
+        }
+        message = switch (payload) {
+            case "NONE" -> new Message(MessageType.START_NEW_GAME);
+            case "STRING" -> new Message(MessageType.LOGIN_SUCCESS, "bench");
+            case "STRINGS" -> new Message(MessageType.LOGIN, new String[]{"bench", "secret"});
+            case "INTS" -> new Message(MessageType.SHOT_RESULT, new int[]{3, 7, 1});
+            case "BOOLEAN" -> new Message(MessageType.GAME_OVER, true);
+            case "GAME" -> new Message(MessageType.PLACE_SHIPS, game);
+            case "DELTA" -> new Message(MessageType.STATE_DELTA,
+                    new StateDelta(12, StateDelta.SHOT, 3, 7, true, GameState.PLAYER_TURN, 0x1234));
+            case "SNAPSHOT" -> new Message(MessageType.RESYNC, GameSync.forPlayer(game).snapshotFor(new int[5]));
+            default -> throw new IllegalArgumentException(payload);
+        };
+    }
+
+    @Benchmark
+    public Message objectStream() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(message);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (Message) in.readObject();
+        }
+    }
+
+    @Benchmark
+    public Message codec() throws IOException {
+        return MessageCodec.decode(MessageCodec.encode(message));
+    }
+}
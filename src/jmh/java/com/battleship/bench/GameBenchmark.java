@@ -0,0 +1,78 @@
+package com.battleship.bench;
+
+import com.battleship.common.Board;
+import com.battleship.common.FleetGenerator;
+import com.battleship.common.Game;
+import com.battleship.common.Rules;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Создание партии и правила расстановки, которыми пользуется экран расстановки. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    private FleetGenerator generator;
+    private Game halfPlaced;
+    private Board occupied;
+
+    @Setup
+    public void setup() {
+        generator = new FleetGenerator(42);
+        halfPlaced = new Game("bench");
+        int[] layout = new FleetGenerator(7).next();
+        for (int i = 0; i < layout.length / 2; i++) {
+            int p = layout[i];
+            halfPlaced.placePlayerShip(FleetGenerator.row(p), FleetGenerator.col(p),
+                    FleetGenerator.size(p), FleetGenerator.vertical(p));
+        }
+        occupied = halfPlaced.playerBoard.copy();
+    }
+
+    /** Конструктор вместе со случайной расстановкой флота компьютера. */
+    @Benchmark
+    public Game newGame() {
+        return new Game("bench");
+    }
+
+    @Benchmark
+    public int[] fleetLayout() {
+        return generator.next();
+    }
+
+    /** Массовая генерация, как её зовёт сервер; время на одну расстановку. */
+    @Benchmark
+    @OperationsPerInvocation(10_000)
+    public long[] generateBoards() {
+        return FleetGenerator.generateBoards(10_000, 42);
+    }
+
+    /** Проверка всех позиций четырёхпалубника — как подсветка при наведении по всему полю. */
+    @Benchmark
+    @OperationsPerInvocation(2 * Board.CELLS)
+    public int canPlaceSweep() {
+        int allowed = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (Rules.canPlace(occupied, cell / Board.SIZE, cell % Board.SIZE, 4, false)) allowed++;
+            if (Rules.canPlace(occupied, cell / Board.SIZE, cell % Board.SIZE, 4, true)) allowed++;
+        }
+        return allowed;
+    }
+
+    /** То же через модель игры, как вызывает PlacementController. */
+    @Benchmark
+    @OperationsPerInvocation(2 * Board.CELLS)
+    public int canPlacePlayerShipSweep() {
+        int allowed = 0;
+        for (int cell = 0; cell < Board.CELLS; cell++) {
+            if (halfPlaced.canPlacePlayerShip(cell / Board.SIZE, cell % Board.SIZE, 4, false)) allowed++;
+            if (halfPlaced.canPlacePlayerShip(cell / Board.SIZE, cell % Board.SIZE, 4, true)) allowed++;
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,55 @@
+package com.battleship.bench;
+
+import com.battleship.common.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость и выделение памяти на один выстрел (см. gc.alloc.rate.norm
+ * в отчёте с -prof gc): сама модель и путь сообщения через кодек.
+ * Поле очищается раз в 100 выстрелов, это размазывается по замеру.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShotBenchmark {
+
+    private Game game;
+    private int next;
+
+    @Setup
+    public void setup() {
+        game = new Game("bench");
+    }
+
+    @Benchmark
+    public boolean modelShot() {
+        int cell = nextCell();
+        return game.shootAtComputer(cell / Board.SIZE, cell % Board.SIZE);
+    }
+
+    /** Запрос SHOT и ответ SHOT_RESULT через кодек, как на стороне сервера и клиента. */
+    @Benchmark
+    public Message shotRoundTrip() throws IOException {
+        int cell = nextCell();
+        Message request = MessageCodec.decode(MessageCodec.encode(
+                new Message(MessageType.SHOT, new int[]{cell / Board.SIZE, cell % Board.SIZE})));
+        int[] target = (int[]) request.getPayload();
+        boolean hit = game.shootAtComputer(target[0], target[1]);
+        return MessageCodec.decode(MessageCodec.encode(
+                new Message(MessageType.SHOT_RESULT, new int[]{target[0], target[1], hit ? 1 : 0})));
+    }
+
+    private int nextCell() {
+        if (next == Board.CELLS) {
+            next = 0;
+            game.computerHitsBoard.clear();
+        }
+        return next++;
+    }
+}
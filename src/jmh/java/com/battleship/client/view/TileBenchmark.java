@@ -0,0 +1,67 @@
+package com.battleship.client.view;
+
+import com.battleship.common.Board;
+import com.battleship.common.Game;
+import com.battleship.common.GameState;
+import com.battleship.common.GameSync;
+import com.battleship.common.LiveGame;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кадр экрана наблюдения, в котором изменились все партии сразу: время
+ * потока JavaFX на запись команд рисования плиток, бюджет кадра при 60 fps —
+ * 16,7 мс. Растеризация идёт в потоке рендеринга и сюда не входит.
+ * Лежит в пакете view ради доступа к TileBoardView.drawTile; без экрана
+ * запускать с -Dprism.order=sw.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dprism.order=sw")
+@State(Scope.Thread)
+public class TileBenchmark {
+
+    @Param({"50", "64"})
+    public int games;
+
+    private Canvas canvas;
+    private LiveGame[] live;
+
+    @Setup
+    public void setup() {
+        canvas = new TileBoardView();
+        Random random = new Random(42);
+        live = new LiveGame[games];
+        for (int i = 0; i < games; i++) {
+            Game game = new Game("bench");
+            Board[] boards = new Board[GameSync.BOARDS];
+            boards[GameSync.MY_SHIPS] = game.computerBoard;
+            for (int b = 1; b < GameSync.BOARDS; b++) boards[b] = new Board();
+            // середина партии: по полсотни выстрелов с каждой стороны
+            for (int shot = 0; shot < 50; shot++) {
+                boards[GameSync.SHOTS_AT_ME].set(random.nextInt(Board.CELLS));
+                int cell = random.nextInt(Board.CELLS);
+                boards[GameSync.MY_SHOTS].set(cell);
+                if (random.nextInt(4) == 0) boards[GameSync.MY_HITS].set(cell);
+            }
+            live[i] = new LiveGame(i, "player" + i, GameState.PLAYER_TURN, boards);
+        }
+    }
+
+    @Benchmark
+    public GraphicsContext redrawAll() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        // заливка всего Canvas сбрасывает накопленные команды, иначе без рендеринга они копятся
+        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (int slot = 0; slot < games; slot++) {
+            TileBoardView.drawTile(g, slot, live[slot], slot == 0);
+        }
+        return g;
+    }
+}
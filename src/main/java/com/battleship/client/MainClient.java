@@ -1,24 +1,60 @@
 package com.battleship.client;
 
+import com.battleship.client.view.Screens;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Scene;
+import javafx.application.Platform;
 import javafx.stage.Stage;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.nio.file.Path;
 
 public class MainClient extends Application {
+
+    private static long launchedAt;
+
+    /**
+     * Тулкит уже поднят: FXML экранов можно разбирать в фоне, пока поток JavaFX
+     * готовит окно. Настройка контроллеров, которой нужен этот поток, ждёт показа.
+     */
+    @Override
+    public void init() {
+        Startup.record("запуск JavaFX", launchedAt, System.nanoTime());
+        Screens.prefetch(Screens.Screen.LOGIN);
+        Screens.prefetch(Screens.Screen.LOBBY);
+    }
+
     @Override
     public void start(Stage stage) throws Exception {
-        FXMLLoader loader = new FXMLLoader(
-                getClass().getResource("/com/battleship/client/view/login.fxml")
-        );
-        Scene scene = new Scene(loader.load(), 500, 600);
-        stage.setScene(scene);
-        stage.setTitle("Морской бой — вход");
+        long start = System.nanoTime();
+        Screens.init(stage);
+        Screens.show(Screens.Screen.LOGIN);
         stage.setResizable(false);
+        stage.setOnShown(e -> Platform.runLater(Startup::interactive));
         stage.show();
+        Startup.record("показ окна входа", start, System.nanoTime());
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        long entered = System.nanoTime();
+        // запись включается до фоновых фаз, иначе их события в неё не попадут
+        startRecording();
+        Startup.begin(entered);
+        launchedAt = System.nanoTime();
         launch();
     }
+
+    /**
+     * -Dbattleship.jfr=client.jfr включает запись JFR с профилем "profile";
+     * файл пишется при выходе. События клиента — в категории Battleship.
+     */
+    private static void startRecording() throws Exception {
+        String file = System.getProperty("battleship.jfr");
+        if (file == null) return;
+        Recording recording = new Recording(Configuration.getConfiguration("profile"));
+        recording.setName("battleship");
+        recording.setDestination(Path.of(file));
+        recording.setDumpOnExit(true);
+        recording.start();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.battleship.client;
+
+import com.battleship.client.ai.AiPlayer;
+import com.battleship.client.concurrent.Tasks;
+import com.battleship.client.net.Transport;
+import com.battleship.client.save.GameStore;
+import com.battleship.client.net.Transports;
+import com.battleship.common.*;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Холодный старт клиента. Пока JavaFX поднимает тулкит, в фоне уже идут
+ * подключение к серверу и прогрев тяжёлых классов (таблицы правил,
+ * генератора флота и ИИ, кодек); FXML экранов разбирается параллельно
+ * из {@code MainClient.init}. Каждая фаза записывается с началом
+ * относительно старта JVM, и после первого кадра экрана входа отчёт
+ * пишется в {@code battleship.startupReport} (по умолчанию
+ * ~/battleship-startup.txt).
+ */
+public final class Startup {
+
+    private record Phase(String name, long startNanos, long endNanos, String thread) {
+    }
+
+    // nanoTime в момент старта JVM: uptime переводит его в шкалу System.nanoTime
+    private static final long JVM_START = System.nanoTime()
+            - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+    private static final ConcurrentLinkedQueue<Phase> phases = new ConcurrentLinkedQueue<>();
+
+    private static volatile Future<Transport> earlyConnection;
+    private static volatile boolean reported;
+
+    private Startup() {
+    }
+
+    /**
+     * Запускает фоновые фазы; {@code mainNanos} — вход в main, до запуска
+     * записи JFR, которая идёт отдельной фазой.
+     */
+    public static void begin(long mainNanos) {
+        long now = System.nanoTime();
+        record("JVM до main", JVM_START, mainNanos);
+        record("запуск записи JFR", mainNanos, now);
+        earlyConnection = Tasks.submit(() -> timed("подключение к серверу", Transports::connect));
+        Tasks.submit(() -> timed("прогрев классов", Startup::warmUp));
+        Tasks.submit(() -> timed("индекс сохранений", GameStore::sharedOrNull));
+    }
+
+    /**
+     * Соединение, открытое заранее, — один раз; null, если его нет или оно не удалось
+     * (тогда экран входа подключается сам).
+     */
+    public static Transport takeConnection() {
+        Future<Transport> future = earlyConnection;
+        earlyConnection = null;
+        if (future == null) return null;
+        try {
+            return future.get();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public static <T> T timed(String name, Callable<T> work) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return work.call();
+        } finally {
+            record(name, start, System.nanoTime());
+        }
+    }
+
+    public static void record(String name, long startNanos, long endNanos) {
+        if (!reported) {
+            phases.add(new Phase(name, startNanos, endNanos, Thread.currentThread().getName()));
+        }
+    }
+
+    /** Первый кадр экрана входа показан: пишет отчёт, дальнейшие фазы не копятся. */
+    public static void interactive() {
+        if (reported) return;
+        long now = System.nanoTime();
+        record("готов к вводу", now, now);
+        reported = true;
+        Path file = Path.of(System.getProperty("battleship.startupReport",
+                Path.of(System.getProperty("user.home"), "battleship-startup.txt").toString()));
+        Tasks.submit(() -> {
+            try {
+                write(file);
+            } catch (IOException e) {
+                System.err.println("Не удалось записать отчёт о запуске: " + e.getMessage());
+            }
+        });
+    }
+
+    private static Void warmUp() throws IOException {
+        Game game = new Game("warmup");
+        for (int p : new FleetGenerator().next()) {
+            game.placePlayerShip(FleetGenerator.row(p), FleetGenerator.col(p),
+                    FleetGenerator.size(p), FleetGenerator.vertical(p));
+        }
+        MessageCodec.decode(MessageCodec.encode(new Message(MessageType.PLACE_SHIPS, game)));
+        GameSync.forPlayer(game);
+        new AiPlayer(AiPlayer.Difficulty.HARD).nextShot();
+        return null;
+    }
+
+    private static void write(Path file) throws IOException {
+        List<Phase> sorted = new ArrayList<>(phases);
+        sorted.sort(Comparator.comparingLong(Phase::startNanos));
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# Запуск клиента " + LocalDateTime.now() + ", время от старта JVM, мс");
+            out.printf("%-32s %8s %8s %8s  %s%n", "фаза", "начало", "конец", "длит.", "поток");
+            for (Phase phase : sorted) {
+                out.printf("%-32s %8.1f %8.1f %8.1f  %s%n", phase.name(),
+                        millis(phase.startNanos() - JVM_START), millis(phase.endNanos() - JVM_START),
+                        millis(phase.endNanos() - phase.startNanos()), phase.thread());
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
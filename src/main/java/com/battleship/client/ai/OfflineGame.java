@@ -0,0 +1,94 @@
+package com.battleship.client.ai;
+
+import com.battleship.common.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Судья партии против {@link AiPlayer} без сервера: отвечает на выстрел
+ * игрока SHOT_RESULT, затем ходит за компьютер (OPPONENT_SHOT), пока тот
+ * попадает, и завершает игру GAME_OVER.
+ */
+public class OfflineGame {
+
+    private final Game game;
+    private final AiPlayer ai;
+
+    public OfflineGame(Game game) {
+        this(game, new AiPlayer(AiPlayer.Difficulty.of(game.difficulty)));
+    }
+
+    public OfflineGame(Game game, AiPlayer ai) {
+        this.game = game;
+        this.ai = ai;
+        game.state = GameState.PLAYER_TURN;
+    }
+
+    public Game getGame() {
+        return game;
+    }
+
+    public boolean isOver() {
+        return game.state == GameState.PLAYER_WON || game.state == GameState.COMPUTER_WON;
+    }
+
+    public List<Message> playerShot(int row, int col) {
+        List<Message> replies = new ArrayList<>();
+        if (game.state != GameState.PLAYER_TURN || !Board.inside(row, col)
+                || game.computerHitsBoard.get(row, col)) {
+            replies.add(new Message(MessageType.ERROR, "Сейчас нельзя стрелять сюда"));
+            return replies;
+        }
+
+        boolean hit = game.shootAtComputer(row, col);
+        Ship sunk = hit ? game.computerShipIndex.sunkAt(row, col) : null;
+        replies.add(new Message(MessageType.SHOT_RESULT, Rules.shotPayload(row, col, hit, sunk)));
+        if (hit) {
+            if (game.allComputerShipsSunk()) {
+                game.state = GameState.PLAYER_WON;
+                replies.add(new Message(MessageType.GAME_OVER, true));
+            }
+            return replies;
+        }
+
+        game.state = GameState.COMPUTER_TURN;
+        computerTurn(replies);
+        return replies;
+    }
+
+    /**
+     * Повтор записанного хода при загрузке сохранения: доски и память ИИ
+     * обновляются, ответы не нужны. Очередь хода остаётся за игроком —
+     * сохраняются только завершённые ходы.
+     */
+    public void replay(boolean computer, int row, int col) {
+        if (!computer) {
+            game.shootAtComputer(row, col);
+            return;
+        }
+        boolean hit = game.shootAtPlayer(row, col);
+        ai.record(row, col, hit, hit ? game.playerShipIndex.sunkAt(row, col) : null);
+    }
+
+    private void computerTurn(List<Message> replies) {
+        while (true) {
+            int cell = ai.nextShot();
+            int row = cell / Board.SIZE, col = cell % Board.SIZE;
+            boolean hit = game.shootAtPlayer(row, col);
+            Ship sunk = hit ? game.playerShipIndex.sunkAt(row, col) : null;
+            ai.record(row, col, hit, sunk);
+            replies.add(new Message(MessageType.OPPONENT_SHOT, Rules.shotPayload(row, col, hit, sunk)));
+
+            if (!hit) {
+                game.state = GameState.PLAYER_TURN;
+                return;
+            }
+            if (game.allPlayerShipsSunk()) {
+                game.state = GameState.COMPUTER_WON;
+                replies.add(new Message(MessageType.GAME_OVER, false));
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.battleship.client.bot;
+
+import com.battleship.client.ai.AiPlayer;
+import com.battleship.client.net.Transport;
+import com.battleship.common.*;
+
+import java.io.IOException;
+
+/**
+ * Один безголовый игрок: проходит тот же сценарий, что и экраны клиента —
+ * вход, новая игра, расстановка, выстрелы до GAME_OVER — и пишет задержку
+ * каждого запроса в {@link LoadStats}. Понимает и дельты протокола v2,
+ * и старые SHOT_RESULT/OPPONENT_SHOT.
+ */
+public class BotSession {
+
+    private static final int FLEET_CELLS = 20;
+    private static final int MAX_SHOTS = 2 * Board.CELLS;
+
+    private final Transport transport;
+    private final LoadStats stats;
+    private final String username;
+    private final AiPlayer.Difficulty difficulty;
+
+    public BotSession(Transport transport, LoadStats stats, String username, AiPlayer.Difficulty difficulty) {
+        this.transport = transport;
+        this.stats = stats;
+        this.username = username;
+        this.difficulty = difficulty;
+    }
+
+    public void login() throws IOException {
+        String[] credentials = {username, "bot"};
+        request(new Message(MessageType.REGISTER, credentials));
+        Message reply = request(new Message(MessageType.LOGIN, credentials));
+        if (reply.getType() != MessageType.LOGIN_SUCCESS) {
+            throw new IOException("Вход не удался: " + reply.getPayload());
+        }
+    }
+
+    /** Играет одну партию; возвращает true, если бот победил. */
+    public boolean playGame() throws IOException {
+        Message reply = request(new Message(MessageType.START_NEW_GAME));
+        if (!(reply.getPayload() instanceof Game game)) {
+            throw new IOException("Ожидалась игра, пришло " + reply.getType() + " " + reply.getPayload());
+        }
+        game.difficulty = difficulty.label;
+        for (int p : new FleetGenerator().next()) {
+            game.placePlayerShip(FleetGenerator.row(p), FleetGenerator.col(p),
+                    FleetGenerator.size(p), FleetGenerator.vertical(p));
+        }
+        send(new Message(MessageType.PLACE_SHIPS, game));
+
+        AiPlayer ai = new AiPlayer(difficulty);
+        int myHits = 0, theirHits = 0;
+        for (int shot = 0; shot < MAX_SHOTS; shot++) {
+            int cell = ai.nextShot();
+            int row = cell / Board.SIZE, col = cell % Board.SIZE;
+            long start = System.nanoTime();
+            send(new Message(MessageType.SHOT, new int[]{row, col}));
+
+            boolean first = true;
+            boolean myTurn = false;
+            while (!myTurn) {
+                Message msg = receive();
+                if (first) {
+                    stats.record(MessageType.SHOT, System.nanoTime() - start);
+                    first = false;
+                }
+                switch (msg.getType()) {
+                    case SHOT_RESULT -> {
+                        int[] r = (int[]) msg.getPayload();
+                        ai.record(r[0], r[1], r[2] == 1, Rules.sunkShip(r));
+                        if (r[2] == 1) myHits++;
+                        myTurn = r[2] == 1 && myHits < FLEET_CELLS;
+                    }
+                    case OPPONENT_SHOT -> {
+                        int[] r = (int[]) msg.getPayload();
+                        if (r[2] == 1) theirHits++;
+                        myTurn = r[2] == 0;
+                    }
+                    case STATE_DELTA -> {
+                        StateDelta delta = (StateDelta) msg.getPayload();
+                        if (delta.kind == StateDelta.SHOT) {
+                            ai.record(delta.row, delta.col, delta.hit, Rules.sunkShip(delta.sunk));
+                        }
+                        myTurn = delta.state == GameState.PLAYER_TURN;
+                    }
+                    case GAME_OVER -> {
+                        stats.games.increment();
+                        boolean won = Boolean.TRUE.equals(msg.getPayload());
+                        if (won) stats.wins.increment();
+                        send(new Message(MessageType.LOBBY_ENTER));
+                        return won;
+                    }
+                    case ERROR -> {
+                        stats.errors.increment();
+                        myTurn = true;
+                    }
+                    default -> {
+                        // прочее (например, подтверждения расстановки) боту не нужно
+                    }
+                }
+            }
+        }
+        send(new Message(MessageType.GAME_OVER, false));
+        throw new IOException("Партия не закончилась за " + MAX_SHOTS + " выстрелов (попаданий "
+                + myHits + "/" + theirHits + ")");
+    }
+
+    public void close() {
+        transport.close();
+    }
+
+    private Message request(Message msg) throws IOException {
+        long start = System.nanoTime();
+        send(msg);
+        Message reply = receive();
+        stats.record(msg.getType(), System.nanoTime() - start);
+        if (reply.getType() == MessageType.ERROR) stats.errors.increment();
+        return reply;
+    }
+
+    private void send(Message msg) throws IOException {
+        transport.send(msg);
+        stats.sent.increment();
+    }
+
+    private Message receive() throws IOException {
+        Message msg;
+        do {
+            msg = transport.receive();
+            stats.received.increment();
+            // токен для RESUME боту не нужен: оборванный бот просто заканчивает прогон
+        } while (msg.getType() == MessageType.SESSION_TOKEN);
+        return msg;
+    }
+}
@@ -0,0 +1,128 @@
+package com.battleship.client.bot;
+
+import com.battleship.client.ai.AiPlayer;
+import com.battleship.client.concurrent.Tasks;
+import com.battleship.client.local.LocalServer;
+import com.battleship.client.net.NioTransport;
+import com.battleship.client.net.Transport;
+import com.battleship.client.net.Transports;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный прогон без интерфейса: N ботов параллельно играют по
+ * {@code games} партий против сервера и в конце печатают пропускную
+ * способность и p50/p99/p999 задержек по типам запросов.
+ *
+ * <pre>
+ * java -cp target/classes com.battleship.client.bot.LoadGenerator \
+ *     --bots=2000 --games=5 --host=localhost --port=8888
+ * java -cp target/classes com.battleship.client.bot.LoadGenerator --bots=2000 --embedded
+ * </pre>
+ *
+ * Боты запускаются через {@link Tasks}, то есть на виртуальных потоках,
+ * если JDK их поддерживает. По умолчанию каждый бот подключается обычным
+ * блокирующим сокетом — на виртуальных потоках это дешевле, чем селектор
+ * на каждое соединение; {@code --transport=nio} включает {@link NioTransport}.
+ */
+public final class LoadGenerator {
+
+    private String host = Transports.HOST;
+    private int port = Transports.PORT;
+    private boolean embedded;
+    private boolean nio;
+    private int bots = 100;
+    private int games = 3;
+    private long rampMs = 1000;
+    private long reportMs = 5000;
+    private AiPlayer.Difficulty difficulty = AiPlayer.Difficulty.MEDIUM;
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        for (String arg : args) generator.parse(arg);
+        generator.run();
+    }
+
+    private void parse(String arg) {
+        String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+        String value = kv.length > 1 ? kv[1] : "true";
+        switch (kv[0]) {
+            case "host" -> host = value;
+            case "port" -> port = Integer.parseInt(value);
+            case "embedded" -> embedded = Boolean.parseBoolean(value);
+            case "transport" -> nio = "nio".equals(value);
+            case "bots" -> bots = Integer.parseInt(value);
+            case "games" -> games = Integer.parseInt(value);
+            case "ramp" -> rampMs = Long.parseLong(value);
+            case "report" -> reportMs = Long.parseLong(value);
+            case "difficulty" -> difficulty = AiPlayer.Difficulty.valueOf(value.toUpperCase());
+            default -> throw new IllegalArgumentException("Неизвестный параметр: " + arg);
+        }
+    }
+
+    private void run() throws Exception {
+        LocalServer server = null;
+        if (embedded) {
+            server = LocalServer.start(0);
+            host = "127.0.0.1";
+            port = server.getPort();
+        }
+        System.out.printf("Ботов: %d, партий на бота: %d, сервер %s:%d%s, потоки: %s%n",
+                bots, games, host, port, embedded ? " (встроенный)" : "",
+                Tasks.isVirtual() ? "виртуальные" : "платформенные");
+
+        LoadStats stats = new LoadStats();
+        long started = System.nanoTime();
+        List<Future<?>> running = new ArrayList<>(bots);
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        for (int i = 0; i < bots; i++) {
+            String username = "bot-" + run + "-" + i;
+            long delay = bots > 1 ? rampMs * i / (bots - 1) : 0;
+            running.add(Tasks.submit(() -> runBot(username, delay, stats)));
+        }
+
+        long nextReport = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(reportMs);
+        for (Future<?> bot : running) {
+            while (true) {
+                try {
+                    bot.get(Math.max(1, nextReport - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    break;
+                } catch (java.util.concurrent.TimeoutException e) {
+                    System.out.printf("... игр %d, активных задач %d%n", stats.games.sum(), Tasks.liveTasks());
+                    nextReport = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(reportMs);
+                }
+            }
+        }
+
+        stats.print(System.out, System.nanoTime() - started);
+        if (server != null) server.close();
+    }
+
+    private Void runBot(String username, long delayMs, LoadStats stats) throws InterruptedException {
+        Thread.sleep(delayMs);
+        BotSession session = null;
+        try {
+            Transport transport = nio
+                    ? Transports.connect(host, port)
+                    : Transports.connectBlocking(host, port);
+            session = new BotSession(transport, stats, username, difficulty);
+            session.login();
+            for (int g = 0; g < games; g++) {
+                session.playGame();
+            }
+        } catch (IOException | RuntimeException e) {
+            stats.failedSessions.increment();
+            System.err.println(username + ": " + e);
+        } finally {
+            if (session != null) session.close();
+        }
+        return null;
+    }
+}
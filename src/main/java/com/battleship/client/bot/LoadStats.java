@@ -0,0 +1,54 @@
+package com.battleship.client.bot;
+
+import com.battleship.client.metrics.LatencyHistogram;
+import com.battleship.common.MessageType;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Общие для всех ботов счётчики и гистограммы задержек по типу запроса. */
+public class LoadStats {
+
+    private final Map<MessageType, LatencyHistogram> latency = new EnumMap<>(MessageType.class);
+
+    final LongAdder sent = new LongAdder();
+    final LongAdder received = new LongAdder();
+    final LongAdder games = new LongAdder();
+    final LongAdder wins = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder failedSessions = new LongAdder();
+
+    public LoadStats() {
+        for (MessageType type : MessageType.values()) {
+            latency.put(type, new LatencyHistogram());
+        }
+    }
+
+    /** Время от отправки запроса до первого ответа на него. */
+    public void record(MessageType request, long nanos) {
+        latency.get(request).recordNanos(nanos);
+    }
+
+    public LatencyHistogram latency(MessageType request) {
+        return latency.get(request);
+    }
+
+    public void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Время: %.1f с, игр: %d (%.1f/с), побед ботов: %d%n",
+                seconds, games.sum(), games.sum() / seconds, wins.sum());
+        out.printf("Сообщений: отправлено %d (%.0f/с), получено %d (%.0f/с), ошибок: %d, сорванных сессий: %d%n",
+                sent.sum(), sent.sum() / seconds, received.sum(), received.sum() / seconds,
+                errors.sum(), failedSessions.sum());
+        out.printf("%-16s %10s %10s %10s %10s %10s %10s%n", "запрос", "кол-во", "в сек", "p50", "p99", "p999", "max");
+        for (Map.Entry<MessageType, LatencyHistogram> e : latency.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            if (h.count() == 0) continue;
+            out.printf("%-16s %10d %10.0f %10s %10s %10s %10s%n", e.getKey(), h.count(), h.count() / seconds,
+                    LatencyHistogram.format(h.percentile(50)), LatencyHistogram.format(h.percentile(99)),
+                    LatencyHistogram.format(h.percentile(99.9)), LatencyHistogram.format(h.max()));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.battleship.client.concurrent;
+
+import com.battleship.client.metrics.FxHandoffEvent;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Исполнитель для потока JavaFX, привязанный к кадрам: задачи копятся
+ * между импульсами и выполняются пачкой в AnimationTimer, а за ними —
+ * отложенные перерисовки. Всплеск сообщений (серия выстрелов, RESYNC,
+ * перемотка) стоит одного прохода раскладки и отрисовки, а в очереди
+ * Platform.runLater от батчера никогда не больше одной задачи.
+ */
+public final class FxBatcher implements Executor {
+
+    private static final FxBatcher SHARED = new FxBatcher();
+    // остаток переносится на следующий кадр, чтобы кадр не растягивался без конца
+    private static final int MAX_PER_PULSE = 2048;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // только в потоке JavaFX
+    private final List<Runnable> beforeRender = new ArrayList<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile long firstQueuedAt;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            drain();
+        }
+    };
+
+    public static FxBatcher shared() {
+        return SHARED;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    /** Выполнится один раз в конце текущей пачки, перед отрисовкой кадра. Только из потока JavaFX. */
+    public void beforeRender(Runnable action) {
+        beforeRender.add(action);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) return;
+        firstQueuedAt = System.nanoTime();
+        if (Platform.isFxApplicationThread()) {
+            timer.start();
+        } else {
+            Platform.runLater(timer::start);
+        }
+    }
+
+    private void drain() {
+        FxHandoffEvent event = new FxHandoffEvent();
+        event.queueDelay = System.nanoTime() - firstQueuedAt;
+        event.begin();
+        int count = 0;
+        for (Runnable task; count < MAX_PER_PULSE && (task = tasks.poll()) != null; count++) {
+            run(task);
+        }
+        // перерисовка может запросить ещё одну — её место в этом же кадре
+        for (int i = 0; i < beforeRender.size(); i++) {
+            run(beforeRender.get(i));
+        }
+        beforeRender.clear();
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = "batch";
+            event.tasks = count;
+            event.commit();
+        }
+
+        if (!tasks.isEmpty()) {
+            firstQueuedAt = System.nanoTime();
+            return;
+        }
+        timer.stop();
+        scheduled.set(false);
+        // задача могла прийти между проверкой и сбросом флага
+        if (!tasks.isEmpty()) schedule();
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            // одна упавшая задача не должна остановить остальные и таймер
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.battleship.client.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * Группа задач одного экрана. {@link #close()} прерывает всё, что ещё
+ * выполняется, и больше не принимает новых задач.
+ */
+public class TaskScope implements AutoCloseable {
+
+    private static final Future<?> STARTING = CompletableFuture.completedFuture(null);
+
+    private final String name;
+    private final Map<Object, Future<?>> running = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    TaskScope(String name) {
+        this.name = name;
+    }
+
+    public Future<?> submit(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        if (closed) {
+            throw new IllegalStateException("Область задач закрыта: " + name);
+        }
+        Object token = new Object();
+        running.put(token, STARTING);
+        Future<T> future = Tasks.submit(() -> {
+            try {
+                return task.call();
+            } finally {
+                running.remove(token);
+            }
+        });
+        running.replace(token, STARTING, future);
+        if (closed) future.cancel(true);
+        return future;
+    }
+
+    public int activeTasks() {
+        return running.size();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Future<?> future : running.values()) {
+            future.cancel(true);
+        }
+        running.clear();
+    }
+}
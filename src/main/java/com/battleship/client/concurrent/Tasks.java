@@ -0,0 +1,97 @@
+package com.battleship.client.concurrent;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Единый исполнитель фоновой работы клиента: сеть, ИИ, сохранения,
+ * предзагрузка FXML. На JDK 21+ каждая задача получает свой виртуальный
+ * поток без всякого пула, на более старых идёт в кэширующий пул демонов.
+ */
+public final class Tasks {
+
+    private static final AtomicInteger live = new AtomicInteger();
+    private static final AtomicLong submitted = new AtomicLong();
+    private static final AtomicLong completed = new AtomicLong();
+
+    private static final ThreadFactory FACTORY = createFactory();
+    private static final boolean VIRTUAL = !(FACTORY instanceof PlatformFactory);
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private Tasks() {
+    }
+
+    public static Future<?> submit(Runnable task) {
+        return submit(Executors.callable(task));
+    }
+
+    public static <T> Future<T> submit(Callable<T> task) {
+        submitted.incrementAndGet();
+        return EXECUTOR.submit(() -> {
+            live.incrementAndGet();
+            try {
+                return task.call();
+            } finally {
+                live.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        });
+    }
+
+    public static TaskScope openScope(String name) {
+        return new TaskScope(name);
+    }
+
+    public static int liveTasks() {
+        return live.get();
+    }
+
+    public static long submittedTasks() {
+        return submitted.get();
+    }
+
+    public static long completedTasks() {
+        return completed.get();
+    }
+
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    private static ThreadFactory createFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "client-task-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return new PlatformFactory();
+        }
+    }
+
+    // Executors.newThreadPerTaskExecutor есть только с JDK 21, как и виртуальные потоки
+    private static ExecutorService createExecutor() {
+        if (VIRTUAL) {
+            try {
+                return (ExecutorService) Executors.class
+                        .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                        .invoke(null, FACTORY);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // пул поверх виртуальной фабрики тоже работает, только переиспользует потоки зря
+            }
+        }
+        return Executors.newCachedThreadPool(FACTORY);
+    }
+
+    private static final class PlatformFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "client-task-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
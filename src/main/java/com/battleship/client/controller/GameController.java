@@ -1,49 +1,85 @@
 package com.battleship.client.controller;
 
+import com.battleship.client.concurrent.TaskScope;
+import com.battleship.client.concurrent.Tasks;
+import com.battleship.client.metrics.FxHandoffEvent;
+import com.battleship.client.metrics.NetStats;
+import com.battleship.client.net.Connection;
+import com.battleship.client.net.MessageHandler;
+import com.battleship.client.replay.Replay;
+import com.battleship.client.replay.ReplayWriter;
+import com.battleship.client.view.BoardView;
+import com.battleship.client.view.Screens;
 import com.battleship.common.*;
-import javafx.application.Platform;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
 import javafx.scene.input.KeyCode;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.StackPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
-import javafx.stage.Stage;
+import javafx.util.Duration;
+
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 
-public class GameController implements Initializable {
+public class GameController implements Initializable, MessageHandler {
 
-    @FXML private GridPane playerGrid;
-    @FXML private GridPane computerGrid;
+    @FXML private BoardView playerGrid;
+    @FXML private BoardView computerGrid;
     @FXML private Label statusLabel;
     @FXML private Rectangle playerTurnIndicator;
     @FXML private Rectangle computerTurnIndicator;
+    @FXML private Label netOverlay;
+    @FXML private HBox replayBar;
+    @FXML private Button replayPlay;
+    @FXML private Slider replaySeek;
+    @FXML private Label replayMove;
+    @FXML private ChoiceBox<String> replaySpeed;
 
 
     private Game game;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
-    private Thread listenerThread;
-    private volatile boolean listening = true;
+    private Connection connection;
+    private boolean listening = true;
     private GameOverController gameOverController;
-
-    private final boolean[][] playerShots = new boolean[10][10];
+    private PauseDialogController pauseDialog;
+
+    private GameSync sync;
+    private Timeline overlayRefresh;
+    // фоновая работа экрана; закрывается при уходе с него
+    private TaskScope tasks;
+
+    private ReplayWriter recorder;
+    private Path lastRecording;
+    private Replay replay;
+    private int replayPos;
+    private Timeline replayTimer;
+    private static final String[] SPEEDS = {"0.5x", "1x", "2x", "4x", "8x"};
+    private static final double[] RATES = {0.5, 1, 2, 4, 8};
+
+    private final boolean[][] playerShots = new boolean[Board.SIZE][Board.SIZE];
     private boolean canShoot = true;
+    // потопленные корабли обеих сторон и клетки вокруг вражеских, где кораблей быть не может
+    private final List<Ship> enemySunk = new ArrayList<>();
+    private final List<Ship> ownSunk = new ArrayList<>();
+    private final Board enemyHalo = new Board();
 
     private static final Color WATER = Color.web("#1e1e2e");
     private static final Color SHIP = Color.web("#89b4fa");
     private static final Color HIT = Color.web("#f38ba8");
     private static final Color MISS = Color.web("#585b70");
-    private static final Color LINE = Color.web("#585b70");
+    private static final Color SUNK = Color.web("#d20f39");
+    private static final Color HALO = Color.web("#313244");
 
     public Label getStatusLabel() {
         return statusLabel;
@@ -52,52 +88,74 @@ public class GameController implements Initializable {
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         statusLabel.setText("Ваш ход!");
+        replaySpeed.getItems().setAll(SPEEDS);
+        replaySpeed.getSelectionModel().select(1);
+        replaySpeed.getSelectionModel().selectedIndexProperty().addListener((obs, old, index) -> {
+            if (replayTimer != null && index.intValue() >= 0) replayTimer.setRate(RATES[index.intValue()]);
+        });
+        replaySeek.valueProperty().addListener((obs, old, value) -> {
+            int move = (int) Math.round(value.doubleValue());
+            if (replay != null && move != replayPos) showReplayMove(move);
+        });
     }
 
-    public void initGame(Game game, ObjectOutputStream out, ObjectInputStream in) {
+    /** Вызывается при каждом показе экрана: контроллер и сцена переиспользуются. */
+    public void initGame(Game game, Connection connection) {
         this.game = game;
-        this.out = out;
-        this.in = in;
-        for (int i = 0; i < 10; i++) {
-            for (int j = 0; j < 10; j++) {
+        this.connection = connection;
+        tasks = Tasks.openScope("game");
+        for (int i = 0; i < Board.SIZE; i++) {
+            for (int j = 0; j < Board.SIZE; j++) {
                 playerShots[i][j] = false;
             }
         }
         canShoot = true;
-        renderFields();
+        stopReplay();
+        enemySunk.clear();
+        ownSunk.clear();
+        enemyHalo.clear();
+        for (Ship ship : game.playerShips) {
+            if (ship.isSunk()) ownSunk.add(ship);
+        }
+        // продолженная партия приходит с флотом противника — потопленные видны по попаданиям
+        for (Ship ship : game.computerShips) {
+            if (Rules.isSunk(ship, game.computerHitsBoard)) addEnemySunk(ship);
+        }
+        // продолженная партия приходит с уже сделанными выстрелами
+        sync = GameSync.forPlayer(game);
+        redrawFromSync();
+        if (recorder != null) recorder.finish(null);
+        recorder = null;
+        lastRecording = null;
+        startRecording();
         startListening();
 
+        statusLabel.setText("Ваш ход!");
         setTurnIndicator(true);
+        if (netOverlay.isVisible()) overlayRefresh.play();
         statusLabel.getScene().setOnKeyPressed(e -> {
             if (e.getCode() == KeyCode.ESCAPE) {
                 onPause();
+            } else if (e.getCode() == KeyCode.F3) {
+                toggleNetOverlay();
+            } else if (e.getCode() == KeyCode.F4) {
+                dumpNetStats();
             }
         });
     }
 
     private void renderFields() {
-        renderGrid(playerGrid, game.playerField, false);
+        renderGrid(playerGrid, game.playerBoard, false);
         renderGrid(computerGrid, null, true);
     }
 
-    private void renderGrid(GridPane grid, boolean[][] field, boolean isEnemy) {
-        grid.getChildren().clear();
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 10; col++) {
-                StackPane cell = new StackPane();
-                Rectangle rect = new Rectangle(40, 40);
-                rect.setStroke(LINE);
-
-                if (isEnemy) {
-                    rect.setFill(WATER);
-                    final int r = row, c = col;
-                    rect.setOnMouseClicked(e -> shoot(r, c));
-                } else {
-                    rect.setFill(field != null && field[row][col] ? SHIP : WATER);
-                }
-
-                cell.getChildren().add(rect);
-                grid.add(cell, col, row);
+    private void renderGrid(BoardView grid, Board field, boolean isEnemy) {
+        grid.fill(WATER);
+        if (isEnemy) {
+            grid.setOnCellClicked(this::shoot);
+        } else if (field != null) {
+            for (int i = field.nextSetBit(0); i >= 0; i = field.nextSetBit(i + 1)) {
+                grid.setCell(i / Board.SIZE, i % Board.SIZE, SHIP);
             }
         }
     }
@@ -105,38 +163,102 @@ public class GameController implements Initializable {
     private void shoot(int row, int col) {
         if (!canShoot) return;
         if (playerShots[row][col]) return;
-
-        try {
-            canShoot = false;
-            out.writeObject(new Message(MessageType.SHOT, new int[]{row, col}));
-            statusLabel.setText("Выстрел отправлен...");
-        } catch (IOException e) {
-            statusLabel.setText("Ошибка!");
-            canShoot = true;
+        if (enemyHalo.get(row, col)) {
+            statusLabel.setText("Рядом с потопленным кораблём пусто");
+            return;
         }
+
+        canShoot = false;
+        statusLabel.setText("Выстрел...");
+        connection.sendAsync(new Message(MessageType.SHOT, new int[]{row, col})).whenComplete((ok, error) -> {
+            if (!listening) return;
+            if (error == null) {
+                // ответ мог прийти раньше, чем сюда дошло известие об отправке
+                if (!canShoot && "Выстрел...".equals(statusLabel.getText())) statusLabel.setText("Выстрел отправлен...");
+            } else {
+                statusLabel.setText("Ошибка!");
+                canShoot = true;
+            }
+        });
     }
 
-    private void startListening() {
-        listenerThread = new Thread(() -> {
-            try {
-                while (listening) {
-                    Message msg = (Message) in.readObject();
-                    Platform.runLater(() -> handleMessage(msg));
+    /** Файл повтора открывается в фоне; выстрелы, сделанные до этого, дописываются по доскам. */
+    private void startRecording() {
+        TaskScope scope = tasks;
+        GameSync snapshot = GameSync.forPlayer(game);
+        String player = game.playerName;
+        String difficulty = game.difficulty;
+        scope.submit(() -> {
+            ReplayWriter writer = ReplayWriter.start(player, difficulty, snapshot);
+            if (writer == null) return;
+            FxHandoffEvent.runLater("replay.start", () -> {
+                if (scope.isClosed()) {
+                    writer.finish(null);
+                    return;
                 }
-            } catch (Exception e) {
-                if (listening) {
-                    Platform.runLater(() -> statusLabel.setText("Соединение разорвано"));
-                }
-            }
+                writer.resync(sync);
+                recorder = writer;
+            });
         });
-        listenerThread.setDaemon(true);
-        listenerThread.start();
+    }
+
+    private void startListening() {
+        listening = true;
+        connection.attach(this);
     }
 
     private void stopListening() {
         listening = false;
-        if (listenerThread != null) {
-            listenerThread.interrupt();
+        connection.detach(this);
+        if (overlayRefresh != null) overlayRefresh.stop();
+    }
+
+    /** F3: RTT, дрожание и перцентили по парам запрос — ответ поверх экрана. */
+    private void toggleNetOverlay() {
+        boolean show = !netOverlay.isVisible();
+        netOverlay.setVisible(show);
+        netOverlay.setManaged(show);
+        if (overlayRefresh == null) {
+            overlayRefresh = new Timeline(new KeyFrame(Duration.millis(500),
+                    e -> netOverlay.setText(NetStats.overlayText())));
+            overlayRefresh.setCycleCount(Timeline.INDEFINITE);
+        }
+        if (show) {
+            netOverlay.setText(NetStats.overlayText());
+            overlayRefresh.play();
+        } else {
+            overlayRefresh.stop();
+        }
+    }
+
+    /** F4: полные гистограммы в файл в домашнем каталоге. */
+    private void dumpNetStats() {
+        Path file = Path.of(System.getProperty("user.home"), "battleship-net-" + System.currentTimeMillis() + ".hgrm");
+        try {
+            NetStats.dump(file);
+            statusLabel.setText("Статистика сети сохранена: " + file);
+        } catch (IOException e) {
+            statusLabel.setText("Не удалось сохранить статистику: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void handle(Message msg) {
+        handleMessage(msg);
+    }
+
+    @Override
+    public void disconnected() {
+        statusLabel.setText("Соединение разорвано");
+    }
+
+    @Override
+    public void connectionState(Connection.State state) {
+        // выстрел во время переподключения не теряется — он ждёт в очереди соединения
+        if (state == Connection.State.RECONNECTING) {
+            statusLabel.setText("Связь потеряна, переподключение...");
+        } else if (state == Connection.State.READY) {
+            statusLabel.setText(canShoot ? "Ваш ход!" : "Связь восстановлена");
         }
     }
 
@@ -144,47 +266,175 @@ public class GameController implements Initializable {
         switch (msg.getType()) {
             case SHOT_RESULT -> {
                 int[] res = (int[]) msg.getPayload();
-                int row = res[0], col = res[1];
-                boolean hit = res[2] == 1;
-
-                playerShots[row][col] = true;
-                updateCell(computerGrid, row, col, hit);
-
-                if (hit) {
-                    statusLabel.setText("Попадание! Ваш ход продолжается.");
-                    setTurnIndicator(true);
-                    canShoot = true;
-                } else {
-                    statusLabel.setText("Промах. Ход противника.");
-                    setTurnIndicator(false);
-                    canShoot = false;
-                }
+                sync.applyShot(true, res[0], res[1], res[2] == 1);
+                onShotResult(res[0], res[1], res[2] == 1);
+                onEnemySunk(Rules.sunkShip(res));
             }
             case OPPONENT_SHOT -> {
                 int[] res = (int[]) msg.getPayload();
-                int row = res[0], col = res[1];
-                boolean hit = res[2] == 1;
-
-                updateCell(playerGrid, row, col, hit);
-
-                if (hit) {
-                    statusLabel.setText("Противник попал! Его ход продолжается.");
-                    setTurnIndicator(false);
-                    canShoot = false;
-                } else {
-                    statusLabel.setText("Противник промахнулся! Ваш ход.");
-                    setTurnIndicator(true);
-                    canShoot = true;
+                sync.applyShot(false, res[0], res[1], res[2] == 1);
+                onOpponentShot(res[0], res[1], res[2] == 1);
+            }
+            case STATE_DELTA -> onDelta((StateDelta) msg.getPayload());
+            case RESYNC -> {
+                SyncSnapshot snapshot = (SyncSnapshot) msg.getPayload();
+                sync.applySnapshot(snapshot);
+                // дельты с потоплениями могли потеряться вместе с выстрелами
+                if (snapshot.sunk != null) {
+                    enemySunk.clear();
+                    enemyHalo.clear();
+                    for (int placement : snapshot.sunk) addEnemySunk(Rules.sunkShip(placement));
                 }
+                if (recorder != null) recorder.resync(sync);
+                redrawFromSync();
+                onStateChanged(sync.state());
+            }
+            case GAME_OVER -> onGameOver((boolean) msg.getPayload());
+            case ERROR -> {
+                // сервер отклонил выстрел: ход не перешёл, стрелять можно снова
+                statusLabel.setText(String.valueOf(msg.getPayload()));
+                if (sync.state() == GameState.PLAYER_TURN) canShoot = true;
+            }
+        }
+    }
+
+    private void onDelta(StateDelta delta) {
+        switch (sync.apply(delta)) {
+            case DUPLICATE -> { }
+            case GAP -> requestResync();
+            case APPLIED, MISMATCH -> {
+                switch (delta.kind) {
+                    case StateDelta.SHOT -> {
+                        onShotResult(delta.row, delta.col, delta.hit);
+                        onEnemySunk(Rules.sunkShip(delta.sunk));
+                    }
+                    case StateDelta.OPPONENT_SHOT -> onOpponentShot(delta.row, delta.col, delta.hit);
+                    default -> onStateChanged(delta.state);
+                }
+                if (delta.checksum != sync.checksum()) requestResync();
+            }
+        }
+    }
+
+    private void requestResync() {
+        if (!connection.send(new Message(MessageType.RESYNC_REQUEST, sync.resyncRequest()))) {
+            statusLabel.setText("Соединение разорвано");
+        }
+    }
+
+    private void onShotResult(int row, int col, boolean hit) {
+        if (recorder != null) recorder.record(true, row, col, hit);
+        playerShots[row][col] = true;
+        updateCell(computerGrid, row, col, hit);
+
+        if (hit) {
+            statusLabel.setText("Попадание! Ваш ход продолжается.");
+            setTurnIndicator(true);
+            canShoot = true;
+        } else {
+            statusLabel.setText("Промах. Ход противника.");
+            setTurnIndicator(false);
+            canShoot = false;
+        }
+    }
+
+    private void onOpponentShot(int row, int col, boolean hit) {
+        if (recorder != null) recorder.record(false, row, col, hit);
+        // свои корабли известны — потопление видно по индексу без помощи сервера
+        game.shootAtPlayer(row, col);
+        Ship sunk = hit ? game.playerShipIndex.sunkAt(row, col) : null;
+        if (sunk != null) {
+            ownSunk.add(sunk);
+            markSunk(playerGrid, sunk, sync.board(GameSync.SHOTS_AT_ME));
+        }
+        updateCell(playerGrid, row, col, hit);
+
+        if (hit) {
+            statusLabel.setText("Противник попал! Его ход продолжается.");
+            setTurnIndicator(false);
+            canShoot = false;
+        } else {
+            statusLabel.setText("Противник промахнулся! Ваш ход.");
+            setTurnIndicator(true);
+            canShoot = true;
+        }
+    }
+
+    private void onStateChanged(GameState state) {
+        switch (state) {
+            case PLAYER_TURN -> {
+                setTurnIndicator(true);
+                canShoot = true;
             }
-            case GAME_OVER -> {
-                boolean win = (boolean) msg.getPayload();
-                statusLabel.setText(win ? "ПОБЕДА!" : "ПОРАЖЕНИЕ!");
+            case COMPUTER_TURN -> {
                 setTurnIndicator(false);
-                stopListening();
                 canShoot = false;
-                showGameOverDialog(win);
             }
+            case PLAYER_WON -> onGameOver(true);
+            case COMPUTER_WON -> onGameOver(false);
+            default -> { }
+        }
+    }
+
+    private void onGameOver(boolean win) {
+        if (!listening) return;
+        statusLabel.setText(win ? "ПОБЕДА!" : "ПОРАЖЕНИЕ!");
+        setTurnIndicator(false);
+        stopListening();
+        canShoot = false;
+        if (recorder != null) {
+            recorder.finish(win ? GameState.PLAYER_WON : GameState.COMPUTER_WON);
+            lastRecording = recorder.path();
+            recorder = null;
+        }
+        showGameOverDialog(win);
+    }
+
+    private void redrawFromSync() {
+        drawBoards(sync);
+        for (Ship ship : enemySunk) markSunk(computerGrid, ship, sync.board(GameSync.MY_SHOTS));
+        for (Ship ship : ownSunk) markSunk(playerGrid, ship, sync.board(GameSync.SHOTS_AT_ME));
+    }
+
+    /** Потопленный вражеский корабль: его ореол закрывается для выстрелов. */
+    private void onEnemySunk(Ship ship) {
+        if (ship == null) return;
+        addEnemySunk(ship);
+        markSunk(computerGrid, ship, sync.board(GameSync.MY_SHOTS));
+    }
+
+    private void addEnemySunk(Ship ship) {
+        enemySunk.add(ship);
+        Board halo = Rules.haloMask(ship.cells.get(0)[0], ship.cells.get(0)[1], ship.size, ship.isVertical);
+        halo.andNot(Rules.shipMask(ship));
+        enemyHalo.or(halo);
+    }
+
+    private void markSunk(BoardView grid, Ship ship, Board shots) {
+        Board cells = Rules.shipMask(ship);
+        Board halo = Rules.haloMask(ship.cells.get(0)[0], ship.cells.get(0)[1], ship.size, ship.isVertical);
+        halo.andNot(cells);
+        halo.andNot(shots);
+        for (int i = cells.nextSetBit(0); i >= 0; i = cells.nextSetBit(i + 1)) {
+            grid.setCell(i / Board.SIZE, i % Board.SIZE, SUNK);
+        }
+        for (int i = halo.nextSetBit(0); i >= 0; i = halo.nextSetBit(i + 1)) {
+            grid.setCell(i / Board.SIZE, i % Board.SIZE, HALO);
+        }
+    }
+
+    private void drawBoards(GameSync view) {
+        renderFields();
+        Board myShots = view.board(GameSync.MY_SHOTS);
+        Board myHits = view.board(GameSync.MY_HITS);
+        Board shotsAtMe = view.board(GameSync.SHOTS_AT_ME);
+        Board myShips = view.board(GameSync.MY_SHIPS);
+        for (int i = myShots.nextSetBit(0); i >= 0; i = myShots.nextSetBit(i + 1)) {
+            playerShots[i / Board.SIZE][i % Board.SIZE] = true;
+            updateCell(computerGrid, i / Board.SIZE, i % Board.SIZE, myHits.get(i));
+        }
+        for (int i = shotsAtMe.nextSetBit(0); i >= 0; i = shotsAtMe.nextSetBit(i + 1)) {
+            updateCell(playerGrid, i / Board.SIZE, i % Board.SIZE, myShips.get(i));
         }
     }
 
@@ -199,15 +449,15 @@ public class GameController implements Initializable {
     }
 
     private void showGameOverDialog(boolean playerWon) {
-        Platform.runLater(() -> {
-            gameOverController = new GameOverController();
+        FxHandoffEvent.runLater("game.over", () -> {
+            if (gameOverController == null) gameOverController = new GameOverController();
             gameOverController.show(
                     playerWon,
                     this,
-                    out,
-                    in,
+                    connection,
                     this::restartGame,
-                    this::exitToMenu
+                    this::exitToMenu,
+                    lastRecording != null ? this::startReplay : null
             );
         });
     }
@@ -215,24 +465,15 @@ public class GameController implements Initializable {
     private void restartGame() {
         try {
             stopListening();
-
-            Stage currentStage = (Stage) statusLabel.getScene().getWindow();
-
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/battleship/client/view/placement.fxml")
-            );
-            Stage stage = new Stage();
-            stage.setScene(new Scene(loader.load(), 1200, 800));
-            stage.centerOnScreen();
-            stage.setTitle("Морской бой — расстановка");
+            stopReplay();
+            tasks.close();
+            if (recorder != null) recorder.finish(null);
+            recorder = null;
 
             Game newGame = new Game(game.playerName);
 
-            PlacementController controller = loader.getController();
-            controller.initGame(newGame, out, in);
-
-            currentStage.close();
-            stage.show();
+            PlacementController controller = Screens.show(Screens.Screen.PLACEMENT);
+            controller.initGame(newGame, connection);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -242,8 +483,8 @@ public class GameController implements Initializable {
 
     @FXML
     private void onPause() {
-        PauseDialogController dialog = new PauseDialogController();
-        dialog.show(
+        if (pauseDialog == null) pauseDialog = new PauseDialogController();
+        pauseDialog.show(
                 this,
                 () -> {},
                 this::restartGame,
@@ -254,24 +495,15 @@ public class GameController implements Initializable {
     private void exitToMenu() {
         try {
             stopListening();
-            out.reset();
-            out.flush();
-
-            out.writeObject(new Message(MessageType.LOBBY_ENTER));
-            out.flush();
-
-            Stage currentStage = (Stage) statusLabel.getScene().getWindow();
-
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/battleship/client/view/lobby.fxml")
-            );
-            Scene scene = new Scene(loader.load(), 600, 700);
-            currentStage.setScene(scene);
-            currentStage.centerOnScreen();
-            currentStage.setTitle("Морской бой — Лобби");
-
-            LobbyController controller = loader.getController();
-            controller.initData(game.playerName, out, in);
+            stopReplay();
+            tasks.close();
+            if (recorder != null) recorder.finish(null);
+            recorder = null;
+            connection.reset();
+            connection.send(new Message(MessageType.LOBBY_ENTER));
+
+            LobbyController controller = Screens.show(Screens.Screen.LOBBY);
+            controller.initData(game.playerName, connection);
             controller.startListening();
 
         } catch (Exception e) {
@@ -280,27 +512,96 @@ public class GameController implements Initializable {
         }
     }
 
-    private void updateCell(GridPane grid, int row, int col, boolean hit) {
-        Rectangle rect = getCellRect(grid, row, col);
-        if (rect != null) {
-            rect.setFill(hit ? HIT : MISS);
-            rect.setDisable(true);
+    /** Повтор только что законченной партии поверх тех же полей; файл читается в фоне. */
+    private void startReplay() {
+        TaskScope scope = tasks;
+        Path recording = lastRecording;
+        scope.submit(() -> {
+            try {
+                Replay loaded = Replay.load(recording);
+                FxHandoffEvent.runLater("replay.load", () -> {
+                    if (!scope.isClosed()) showReplay(loaded);
+                });
+            } catch (IOException e) {
+                FxHandoffEvent.runLater("replay.load", () -> {
+                    if (!scope.isClosed()) statusLabel.setText("Не удалось открыть повтор: " + e.getMessage());
+                });
+            }
+        });
+    }
+
+    private void showReplay(Replay loaded) {
+        replay = loaded;
+        canShoot = false;
+        replayBar.setVisible(true);
+        replayBar.setManaged(true);
+        if (replayTimer == null) {
+            replayTimer = new Timeline(new KeyFrame(Duration.millis(600), e -> replayStep()));
+            replayTimer.setCycleCount(Timeline.INDEFINITE);
         }
+        replayTimer.setRate(RATES[Math.max(0, replaySpeed.getSelectionModel().getSelectedIndex())]);
+        replayPos = -1;
+        replaySeek.setMax(replay.moves());
+        showReplayMove(0);
+        playReplay(true);
     }
 
-    private Rectangle getCellRect(GridPane grid, int row, int col) {
-        Node cell = getCellNode(grid, row, col);
-        return cell != null ? (Rectangle) ((StackPane) cell).getChildren().get(0) : null;
+    private void stopReplay() {
+        if (replayTimer != null) replayTimer.stop();
+        replay = null;
+        replayBar.setVisible(false);
+        replayBar.setManaged(false);
     }
 
-    private Node getCellNode(GridPane grid, int row, int col) {
-        for (Node node : grid.getChildren()) {
-            Integer r = GridPane.getRowIndex(node);
-            Integer c = GridPane.getColumnIndex(node);
-            if ((r == null ? 0 : r) == row && (c == null ? 0 : c) == col) {
-                return node;
-            }
+    /** Перемотка: доски восстанавливаются от ближайшей контрольной точки. */
+    private void showReplayMove(int move) {
+        replayPos = move;
+        drawBoards(replay.seek(move));
+        updateReplayPosition();
+    }
+
+    private void replayStep() {
+        if (replayPos >= replay.moves()) {
+            playReplay(false);
+            return;
         }
-        return null;
+        int move = replayPos++;
+        updateCell(replay.mine(move) ? computerGrid : playerGrid, replay.row(move), replay.col(move), replay.hit(move));
+        setTurnIndicator(replay.mine(move) == replay.hit(move));
+        updateReplayPosition();
+    }
+
+    private void updateReplayPosition() {
+        replaySeek.setValue(replayPos);
+        replayMove.setText(replayPos + " / " + replay.moves());
+        String text = "Повтор партии";
+        if (replayPos == replay.moves() && replay.result != null) {
+            text = replay.result == GameState.PLAYER_WON ? "Повтор: ПОБЕДА" : "Повтор: ПОРАЖЕНИЕ";
+        }
+        statusLabel.setText(text);
+    }
+
+    private void playReplay(boolean play) {
+        if (play && replayPos >= replay.moves()) showReplayMove(0);
+        if (play) {
+            replayTimer.play();
+        } else {
+            replayTimer.pause();
+        }
+        replayPlay.setText(play ? "⏸" : "▶");
+    }
+
+    @FXML
+    private void onReplayPlay() {
+        if (replay != null) playReplay(replayTimer.getStatus() != Animation.Status.RUNNING);
+    }
+
+    @FXML
+    private void onReplayExit() {
+        exitToMenu();
+    }
+
+    private void updateCell(BoardView grid, int row, int col, boolean hit) {
+        grid.setCell(row, col, hit ? HIT : MISS);
     }
-}
\ No newline at end of file
+}
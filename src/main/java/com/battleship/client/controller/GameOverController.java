@@ -1,5 +1,7 @@
 package com.battleship.client.controller;
 
+import com.battleship.client.metrics.DialogEvent;
+import com.battleship.client.net.Connection;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -11,8 +13,6 @@ import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 public class GameOverController {
 
@@ -20,30 +20,49 @@ public class GameOverController {
     @FXML private Label messageLabel;
     @FXML private Button restartButton;
     @FXML private Button exitButton;
+    @FXML private Button replayButton;
 
     private Stage stage;
+    private DialogEvent showing;
     private GameController gameController;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private Connection connection;
     private Runnable onRestartCallback;
     private Runnable onExitCallback;
+    private Runnable onReplayCallback;
 
+    /** {@code onReplay} — null, если повтор партии не записан. */
     public void show(boolean playerWon, GameController gameController,
-                     ObjectOutputStream out, ObjectInputStream in,
-                     Runnable onRestart, Runnable onExit) {
+                     Connection connection,
+                     Runnable onRestart, Runnable onExit, Runnable onReplay) {
 
         this.gameController = gameController;
-        this.out = out;
-        this.in = in;
+        this.connection = connection;
         this.onRestartCallback = onRestart;
         this.onExitCallback = onExit;
+        this.onReplayCallback = onReplay;
 
+        DialogEvent event = new DialogEvent("game-over");
+        showing = event;
         try {
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/battleship/client/view/game_over_dialog.fxml")
-            );
-            loader.setController(this);
-            Parent root = loader.load();
+            // окно диалога строится один раз и переиспользуется
+            if (stage == null) {
+                FXMLLoader loader = new FXMLLoader(
+                        getClass().getResource("/com/battleship/client/view/game_over_dialog.fxml")
+                );
+                loader.setController(this);
+                Parent root = loader.load();
+                stage = new Stage();
+                stage.initModality(Modality.APPLICATION_MODAL);
+                stage.initStyle(StageStyle.TRANSPARENT);
+                stage.setTitle("Игра окончена");
+
+                Scene scene = new Scene(root);
+                scene.setFill(null);
+                stage.setScene(scene);
+
+                centerOnMainStage(root);
+            }
+            replayButton.setDisable(onReplay == null);
             if (playerWon) {
                 titleLabel.setText("ПОБЕДА!");
                 titleLabel.setStyle("-fx-text-fill: #a6e3a1;");
@@ -54,18 +73,8 @@ public class GameOverController {
                 messageLabel.setText("Все ваши корабли потоплены...");
             }
 
-            stage = new Stage();
-            stage.initModality(Modality.APPLICATION_MODAL);
-            stage.initStyle(StageStyle.TRANSPARENT);
-            stage.setTitle("Игра окончена");
-
-            Scene scene = new Scene(root);
-            scene.setFill(null);
-            stage.setScene(scene);
-
-            centerOnMainStage(root);
-
             stage.showAndWait();
+            event.commit();
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -74,7 +83,8 @@ public class GameOverController {
     private void centerOnMainStage(Parent root) {
         Stage mainStage = (Stage) gameController.getStatusLabel().getScene().getWindow();
 
-        stage.setOnShown(event -> {
+        stage.setOnShown(e -> {
+            showing.shown();
             double width = root.getBoundsInParent().getWidth();
             double height = root.getBoundsInParent().getHeight();
 
@@ -99,6 +109,14 @@ public class GameOverController {
         close();
     }
 
+    @FXML
+    private void onReplay() {
+        close();
+        if (onReplayCallback != null) {
+            onReplayCallback.run();
+        }
+    }
+
     private void close() {
         if (stage != null) {
             stage.close();
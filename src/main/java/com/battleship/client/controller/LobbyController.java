@@ -1,36 +1,84 @@
 package com.battleship.client.controller;
 
+import com.battleship.client.net.Connection;
+import com.battleship.client.net.MessageHandler;
+import com.battleship.client.view.Screens;
 import com.battleship.common.Game;
+import com.battleship.common.GameState;
+import com.battleship.common.MegaGame;
 import com.battleship.common.Message;
 import com.battleship.common.MessageType;
+import com.battleship.common.SavedGame;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Scene;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
-import javafx.stage.Stage;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.KeyCode;
+import javafx.util.Duration;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
-public class LobbyController {
+public class LobbyController implements MessageHandler, Screens.Setup {
 
     @FXML private Label welcomeLabel;
     @FXML private Label statusLabel;
+    @FXML private ListView<SavedGame> savedList;
+    @FXML private ChoiceBox<Integer> megaSize;
+    @FXML private TextField megaFleet;
 
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private static final DateTimeFormatter SAVED_AT =
+            DateTimeFormatter.ofPattern("dd.MM HH:mm").withZone(ZoneId.systemDefault());
+
+    // сохранения появились в протоколе версии 3; старый сервер GAME_LIST не знает
+    private static final int SAVES_VERSION = 3;
+    private static final int SPECTATE_VERSION = 5;
+
+    private Connection connection;
     private String currentUser;
-    private Thread listenerThread;
-    private volatile boolean listening = true;
+    // ждём GAME_LIST: если сервер промолчит, экран не должен висеть на «Загружаем...»
+    private PauseTransition listTimeout;
+
+    @FXML private void initialize() {
+        // ListView создаёт ячейки только для видимых строк — тысячи сохранений открываются сразу
+        savedList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(SavedGame save, boolean empty) {
+                super.updateItem(save, empty);
+                setText(empty || save == null ? null : describe(save));
+            }
+        });
+        savedList.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) continueSelected();
+        });
+        savedList.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) continueSelected();
+        });
+        megaSize.getItems().setAll(50, 100, 250, 500, MegaGame.MAX_SIZE);
+        megaSize.setValue(100);
+    }
 
-    public void initData(String username, ObjectOutputStream out, ObjectInputStream in) {
+    /** Tooltip — всплывающее окно, а анимации живут в цикле кадров: обоим нужен поток JavaFX. */
+    @Override
+    public void setup() {
+        megaFleet.setTooltip(new Tooltip("Длина*число через запятую; пусто — классический флот на каждые 10x10"));
+        listTimeout = new PauseTransition(Duration.seconds(10));
+        listTimeout.setOnFinished(e -> statusLabel.setText("Сервер не прислал список сохранений"));
+    }
+
+    public void initData(String username, Connection connection) {
         this.currentUser = username;
-        this.out = out;
-        this.in = in;
+        this.connection = connection;
         welcomeLabel.setText("Привет, " + username);
         statusLabel.setText("Готов к бою");
+        showSaved(false);
+        Screens.prefetch(Screens.Screen.PLACEMENT);
     }
 
     @FXML private void onNewGame() {
@@ -38,69 +86,112 @@ public class LobbyController {
         statusLabel.setText("Создаём игру...");
     }
 
+    @FXML private void onMega() {
+        int size = megaSize.getValue();
+        int[] fleet;
+        try {
+            fleet = MegaGame.parseFleet(megaFleet.getText(), size);
+        } catch (IllegalArgumentException e) {
+            statusLabel.setText("Флот: " + e.getMessage());
+            return;
+        }
+        try {
+            stopListening();
+            MegaController controller = Screens.show(Screens.Screen.MEGA);
+            controller.initGame(currentUser, connection, size, fleet);
+        } catch (Exception e) {
+            e.printStackTrace();
+            startListening();
+            statusLabel.setText("Ошибка перехода в мега-бой");
+        }
+    }
+
+    @FXML private void onSpectate() {
+        if (connection.version() < SPECTATE_VERSION) {
+            statusLabel.setText("Сервер не поддерживает наблюдение");
+            return;
+        }
+        try {
+            stopListening();
+            SpectatorController controller = Screens.show(Screens.Screen.SPECTATE);
+            controller.initData(currentUser, connection);
+        } catch (Exception e) {
+            e.printStackTrace();
+            startListening();
+            statusLabel.setText("Ошибка перехода к наблюдению");
+        }
+    }
+
     @FXML private void onExit() {
         stopListening();
+        connection.close();
         Platform.exit();
         System.exit(0);
     }
 
     private void send(Message msg) {
-        try {
-            out.writeObject(msg);
-            out.flush();
-        } catch (IOException e) {
+        connection.sendAsync(msg).exceptionally(error -> {
             statusLabel.setText("Ошибка связи");
-        }
+            return null;
+        });
     }
 
     public void startListening() {
-        listenerThread = new Thread(() -> {
-            try {
-                while (listening) {
-                    Object obj = in.readObject();
-
-                    if (obj instanceof Message msg) {
-                        Platform.runLater(() -> {
-                            if (msg.getType() == MessageType.GAME_STATE) {
-                                Game game = (Game) msg.getPayload();
-                                stopListening();
-                                openPlacementScreen(game);
-                            } else if (msg.getType() == MessageType.ERROR) {
-                                statusLabel.setText("Ошибка: " + msg.getPayload());
-                            }
-                        });
-                    }
-                }
-            } catch (Exception e) {
-                if (listening) {
-                    e.printStackTrace();
-                    Platform.runLater(() -> statusLabel.setText("Соединение потеряно"));
-                }
-            }
-        });
-        listenerThread.setDaemon(true);
-        listenerThread.start();
+        connection.attach(this);
     }
 
     private void stopListening() {
-        listening = false;
-        if (listenerThread != null) {
-            listenerThread.interrupt();
+        listTimeout.stop();
+        connection.detach(this);
+    }
+
+    @Override
+    public void handle(Message msg) {
+        if (msg.getType() == MessageType.GAME_STATE) {
+            Game game = (Game) msg.getPayload();
+            stopListening();
+            if (game.state == GameState.PLACING_SHIPS) {
+                openPlacementScreen(game);
+            } else {
+                openGameScreen(game);
+            }
+        } else if (msg.getType() == MessageType.GAME_LIST) {
+            listTimeout.stop();
+            SavedGame[] saves = (SavedGame[]) msg.getPayload();
+            if (saves.length == 0) {
+                statusLabel.setText("Сохранённых игр нет");
+                return;
+            }
+            savedList.getItems().setAll(saves);
+            savedList.getSelectionModel().selectFirst();
+            showSaved(true);
+            savedList.requestFocus();
+            statusLabel.setText("Двойной щелчок или Enter — продолжить");
+        } else if (msg.getType() == MessageType.ERROR) {
+            listTimeout.stop();
+            statusLabel.setText("Ошибка: " + msg.getPayload());
         }
     }
 
+    @Override
+    public void disconnected() {
+        statusLabel.setText("Соединение потеряно");
+    }
+
     private void openPlacementScreen(Game game) {
         try {
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/battleship/client/view/placement.fxml")
-            );
-            Stage stage = (Stage) welcomeLabel.getScene().getWindow();
-            stage.setScene(new Scene(loader.load(), 1200, 800));
-            stage.centerOnScreen();
-            stage.setTitle("Морской бой — расстановка");
+            PlacementController controller = Screens.show(Screens.Screen.PLACEMENT);
+            controller.initGame(game, connection);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-            PlacementController controller = loader.getController();
-            controller.initGame(game, out, in);
+    private void openGameScreen(Game game) {
+        try {
+            GameController controller = Screens.show(Screens.Screen.GAME);
+            controller.initGame(game, connection);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -109,6 +200,36 @@ public class LobbyController {
 
     @FXML
     private void onContinue() {
-        statusLabel.setText("Сохранённые игры — скоро будет!");
+        if (savedList.isVisible()) {
+            showSaved(false);
+            statusLabel.setText("Готов к бою");
+            return;
+        }
+        if (connection.version() < SAVES_VERSION) {
+            statusLabel.setText("Сервер не поддерживает сохранения");
+            return;
+        }
+        Screens.prefetch(Screens.Screen.GAME);
+        send(new Message(MessageType.GAME_LIST));
+        statusLabel.setText("Загружаем сохранения...");
+        listTimeout.playFromStart();
+    }
+
+    private void continueSelected() {
+        SavedGame save = savedList.getSelectionModel().getSelectedItem();
+        if (save == null) return;
+        send(new Message(MessageType.CONTINUE_GAME, new int[]{save.id}));
+        statusLabel.setText("Загружаем партию...");
+    }
+
+    private void showSaved(boolean show) {
+        savedList.setVisible(show);
+        savedList.setManaged(show);
+        if (!show) savedList.getItems().clear();
+    }
+
+    private static String describe(SavedGame save) {
+        return SAVED_AT.format(Instant.ofEpochMilli(save.updatedAt)) + "  ·  " + save.difficulty
+                + "  ·  выстрелов " + save.shots + ", попаданий " + save.hits + ", потерь " + save.losses;
     }
-}
\ No newline at end of file
+}
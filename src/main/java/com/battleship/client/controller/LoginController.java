@@ -1,47 +1,41 @@
 package com.battleship.client.controller;
 
+import com.battleship.client.Startup;
+import com.battleship.client.net.Connection;
+import com.battleship.client.net.MessageHandler;
+import com.battleship.client.net.OfflineTransport;
+import com.battleship.client.net.Transport;
+import com.battleship.client.net.Transports;
+import com.battleship.client.view.Screens;
 import com.battleship.common.Message;
 import com.battleship.common.MessageType;
-import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
-import javafx.stage.Stage;
 
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.IOException;
-import java.net.Socket;
-
-public class LoginController {
+public class LoginController implements MessageHandler, Screens.Setup {
 
     @FXML private TextField loginField;
     @FXML private PasswordField passwordField;
     @FXML private Label statusLabel;
 
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
-    private Socket socket;
+    private Connection connection;
 
-    @FXML private void initialize() {
+    @Override
+    public void setup() {
         connectToServer();
+        Screens.prefetch(Screens.Screen.LOBBY);
     }
 
     private void connectToServer() {
-        new Thread(() -> {
-            try {
-                socket = new Socket("localhost", 8888);
-                out = new ObjectOutputStream(socket.getOutputStream());
-                out.flush();
-                in = new ObjectInputStream(socket.getInputStream());
-
-            } catch (Exception e) {
-                Platform.runLater(() -> statusLabel.setText("Нет связи с сервером"));
-            }
-        }).start();
+        // соединение создаётся сразу: вход, нажатый до окончания подключения, ждёт в очереди
+        connection = new Connection(() -> {
+            Transport transport = Startup.takeConnection();
+            return transport != null ? transport : Transports.connect();
+        });
+        connection.attach(this);
+        connection.start();
     }
 
     @FXML private void onLogin() {
@@ -66,49 +60,58 @@ public class LoginController {
         statusLabel.setText("Регистрация...");
     }
 
+    @FXML private void onOffline() {
+        String login = loginField.getText().trim();
+        if (connection != null) {
+            connection.detach(this);
+            connection.close();
+        }
+        String player = login.isEmpty() ? "Игрок" : login;
+        connection = new Connection(new OfflineTransport(player));
+        connection.start();
+        openLobby(player);
+    }
+
     private void send(Message msg) {
-        try {
-            out.writeObject(msg);
-            out.flush();
-            new Thread(this::waitForLoginResponse).start();
-        } catch (Exception e) {
-            Platform.runLater(() -> statusLabel.setText("Ошибка отправки"));
+        if (connection == null || !connection.send(msg)) {
+            statusLabel.setText("Ошибка отправки");
         }
     }
 
-    private void waitForLoginResponse() {
-        try {
-            Message msg = (Message) in.readObject();
-            Platform.runLater(() -> {
-                if (msg.getType() == MessageType.LOGIN_SUCCESS) {
-                    String username = msg.getType() == MessageType.LOGIN_SUCCESS
-                            ? (String) msg.getPayload()
-                            : loginField.getText();
-
-                    openLobby(username);
-                } else {
-                    statusLabel.setText("Сообщение: " + msg.getPayload());
-                }
-            });
-        } catch (Exception e) {
-            Platform.runLater(() -> statusLabel.setText("Соединение разорвано"));
+    @Override
+    public void handle(Message msg) {
+        if (msg.getType() == MessageType.LOGIN_SUCCESS) {
+            String username = (String) msg.getPayload();
+            openLobby(username);
+        } else {
+            statusLabel.setText("Сообщение: " + msg.getPayload());
+        }
+    }
+
+    @Override
+    public void disconnected() {
+        statusLabel.setText("Нет связи с сервером");
+    }
+
+    @Override
+    public void connectionState(Connection.State state) {
+        if (state == Connection.State.RECONNECTING) {
+            statusLabel.setText("Переподключение...");
+        } else if (state == Connection.State.READY && statusLabel.getText().startsWith("Переподключение")) {
+            statusLabel.setText("");
         }
     }
 
     private void openLobby(String username) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/battleship/client/view/lobby.fxml"));
-            Stage stage = (Stage) statusLabel.getScene().getWindow();
-            stage.centerOnScreen();
-            stage.setTitle("Морской бой — Лобби");
-            stage.setScene(new Scene(loader.load(), 600, 700));
-
-            LobbyController lobby = loader.getController();
-            lobby.initData(username, out, in);
+            connection.detach(this);
+
+            LobbyController lobby = Screens.show(Screens.Screen.LOBBY);
+            lobby.initData(username, connection);
             lobby.startListening();
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package com.battleship.client.controller;
+
+import com.battleship.client.concurrent.FxBatcher;
+import com.battleship.client.concurrent.TaskScope;
+import com.battleship.client.concurrent.Tasks;
+import com.battleship.client.net.Connection;
+import com.battleship.client.view.MegaBoardView;
+import com.battleship.client.view.Screens;
+import com.battleship.common.MegaGame;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+
+/**
+ * Мега-бой против компьютера на большом поле. Партия целиком локальная:
+ * протокол передаёт клетку одним байтом и рассчитан на поле 10x10.
+ * Флоты расставляются случайно — вручную сотни тысяч кораблей не расставить.
+ */
+public class MegaController {
+
+    @FXML private Label statusLabel;
+    @FXML private Label fleetLabel;
+    @FXML private MegaBoardView playerGrid;
+    @FXML private MegaBoardView computerGrid;
+
+    private String username;
+    private Connection connection;
+    private MegaGame game;
+    // расстановка идёт в фоне; устаревший результат (ушли в меню, начали заново) отбрасывается
+    private int generation;
+    private TaskScope tasks;
+
+    @FXML private void initialize() {
+        computerGrid.setOnCellClicked(this::shoot);
+    }
+
+    public void initGame(String username, Connection connection, int size, int[] fleet) {
+        this.username = username;
+        this.connection = connection;
+        game = null;
+        int current = ++generation;
+        statusLabel.setText("Расставляем флоты " + size + "x" + size + "...");
+        fleetLabel.setText("");
+        playerGrid.setBoard(size, (row, col) -> MegaBoardView.WATER);
+        computerGrid.setBoard(size, (row, col) -> MegaBoardView.WATER);
+        if (tasks != null) tasks.close();
+        tasks = Tasks.openScope("mega");
+        tasks.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                MegaGame created = new MegaGame(size, fleet, System.nanoTime());
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                FxBatcher.shared().execute(() -> {
+                    if (current == generation) start(created, millis);
+                });
+            } catch (Throwable e) {
+                // OutOfMemoryError и прочее не должны оставлять экран в «Расставляем флоты...»
+                String text = e instanceof IllegalArgumentException
+                        ? e.getMessage() : "Не удалось расставить флоты: " + e;
+                FxBatcher.shared().execute(() -> {
+                    if (current == generation) statusLabel.setText(text);
+                });
+            }
+        });
+    }
+
+    private void start(MegaGame created, long millis) {
+        game = created;
+        playerGrid.setBoard(game.size, this::playerState);
+        computerGrid.setBoard(game.size, this::computerState);
+        statusLabel.setText("Ваш ход. Колесо — масштаб, перетаскивание — сдвиг (флоты за " + millis + " мс)");
+        updateFleet();
+    }
+
+    private int playerState(int row, int col) {
+        MegaGame.Side side = game.player;
+        int index = side.ships.index(row, col);
+        if (side.sunk.get(index)) return MegaBoardView.SUNK;
+        boolean ship = side.ships.get(index);
+        if (side.shots.get(index)) return ship ? MegaBoardView.HIT : MegaBoardView.MISS;
+        return ship ? MegaBoardView.SHIP : MegaBoardView.WATER;
+    }
+
+    private int computerState(int row, int col) {
+        MegaGame.Side side = game.computer;
+        int index = side.ships.index(row, col);
+        if (!side.shots.get(index)) return MegaBoardView.WATER;
+        if (side.sunk.get(index)) return MegaBoardView.SUNK;
+        return side.ships.get(index) ? MegaBoardView.HIT : MegaBoardView.MISS;
+    }
+
+    private void shoot(int row, int col) {
+        if (game == null || game.isOver() || !game.playerTurn) return;
+        int result = game.playerShot(row, col);
+        if (result == MegaGame.REPEAT) return;
+        computerGrid.invalidate();
+        switch (result) {
+            case MegaGame.HIT -> statusLabel.setText("Попадание! Стреляйте ещё");
+            case MegaGame.SUNK -> statusLabel.setText("Корабль потоплен! Стреляйте ещё");
+            default -> computerTurn();
+        }
+        updateFleet();
+        if (game.isOver()) finish();
+    }
+
+    // ход компьютера целиком за один кадр: серия попаданий перерисуется один раз
+    private void computerTurn() {
+        int shots = 0;
+        while (!game.playerTurn && !game.isOver()) {
+            game.computerShot();
+            shots++;
+        }
+        playerGrid.invalidate();
+        if (!game.isOver()) {
+            statusLabel.setText("Компьютер сделал выстрелов: " + shots + ". Ваш ход");
+        }
+    }
+
+    private void updateFleet() {
+        fleetLabel.setText("Ваших кораблей: " + game.player.shipsLeft
+                + "   ·   кораблей противника: " + game.computer.shipsLeft);
+    }
+
+    private void finish() {
+        statusLabel.setText(game.playerWon() ? "Победа! Флот противника уничтожен" : "Поражение. Ваш флот уничтожен");
+    }
+
+    @FXML
+    private void onExit() {
+        try {
+            game = null;
+            generation++;
+            if (tasks != null) tasks.close();
+            LobbyController controller = Screens.show(Screens.Screen.LOBBY);
+            controller.initData(username, connection);
+            controller.startListening();
+        } catch (Exception e) {
+            e.printStackTrace();
+            statusLabel.setText("Ошибка при переходе в меню");
+        }
+    }
+}
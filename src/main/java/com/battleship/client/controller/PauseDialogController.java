@@ -1,5 +1,6 @@
 package com.battleship.client.controller;
 
+import com.battleship.client.metrics.DialogEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -17,6 +18,7 @@ public class PauseDialogController {
     @FXML private VBox root;
 
     private Stage stage;
+    private DialogEvent showing;
     private Runnable onResume;
     private Runnable onRestart;
     private Runnable onExitToMenu;
@@ -32,25 +34,31 @@ public class PauseDialogController {
         this.onRestart = onRestart;
         this.onExitToMenu = onExitToMenu;
 
+        DialogEvent event = new DialogEvent("pause");
+        showing = event;
         try {
-            FXMLLoader loader = new FXMLLoader(
-                    getClass().getResource("/com/battleship/client/view/pause_dialog.fxml")
-            );
-            loader.setController(this);
-            Parent root = loader.load();
-
-            stage = new Stage();
-            stage.initModality(Modality.APPLICATION_MODAL);
-            stage.initStyle(StageStyle.TRANSPARENT);
-            stage.setTitle("Пауза");
-
-            Scene scene = new Scene(root);
-            scene.setFill(null);
-            stage.setScene(scene);
-
-            centerOnMainStage(root);
+            // окно диалога строится один раз и переиспользуется
+            if (stage == null) {
+                FXMLLoader loader = new FXMLLoader(
+                        getClass().getResource("/com/battleship/client/view/pause_dialog.fxml")
+                );
+                loader.setController(this);
+                Parent root = loader.load();
+
+                stage = new Stage();
+                stage.initModality(Modality.APPLICATION_MODAL);
+                stage.initStyle(StageStyle.TRANSPARENT);
+                stage.setTitle("Пауза");
+
+                Scene scene = new Scene(root);
+                scene.setFill(null);
+                stage.setScene(scene);
+
+                centerOnMainStage(root);
+            }
 
             stage.showAndWait();
+            event.commit();
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -60,7 +68,8 @@ public class PauseDialogController {
     private void centerOnMainStage(Parent root) {
         Stage mainStage = (Stage) gameController.getStatusLabel().getScene().getWindow();
 
-        stage.setOnShown(event -> {
+        stage.setOnShown(e -> {
+            showing.shown();
             double width = root.getBoundsInParent().getWidth();
             double height = root.getBoundsInParent().getHeight();
 
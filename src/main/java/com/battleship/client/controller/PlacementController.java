@@ -1,36 +1,31 @@
 package com.battleship.client.controller;
 
+import com.battleship.client.net.Connection;
+import com.battleship.client.view.BoardView;
+import com.battleship.client.view.Screens;
+import com.battleship.common.Board;
+import com.battleship.common.FleetGenerator;
 import com.battleship.common.Game;
 import com.battleship.common.Message;
 import com.battleship.common.MessageType;
+import com.battleship.common.Rules;
 import com.battleship.common.Ship;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.geometry.Pos;
-import javafx.scene.Node;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseEvent;
-import javafx.scene.layout.ColumnConstraints;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.RowConstraints;
-import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
-import javafx.stage.Stage;
 
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.URL;
 import java.util.*;
 
 public class PlacementController implements Initializable {
 
-    @FXML private GridPane playerGrid;
+    @FXML private BoardView playerGrid;
     @FXML private Button readyButton;
     @FXML private Label statusLabel;
     @FXML private ComboBox<String> difficultyCombo;
@@ -39,8 +34,7 @@ public class PlacementController implements Initializable {
     @FXML private Label count4Label, count3Label, count2Label, count1Label;
 
     private Game game;
-    private ObjectOutputStream out;
-    private ObjectInputStream in;
+    private Connection connection;
 
     private Rectangle selectedShip = null;
     private int selectedSize = 0;
@@ -71,13 +65,18 @@ public class PlacementController implements Initializable {
         difficultyCombo.setValue("Средний");
     }
 
-    public void initGame(Game game, ObjectOutputStream out, ObjectInputStream in) {
+    /** Вызывается при каждом показе экрана: контроллер и сцена переиспользуются. */
+    public void initGame(Game game, Connection connection) {
         this.game = game;
-        this.out = out;
-        this.in = in;
+        this.connection = connection;
         readyButton.setDisable(true);
 
+        deselect();
+        initShipCounts();
+        buildGrid();
+        statusLabel.setText("Выберите корабль.");
         updateShipVisuals();
+        Screens.prefetch(Screens.Screen.GAME);
         playerGrid.getScene().setOnKeyPressed(e -> {
             if (e.getCode() == KeyCode.R && selectedShip != null) {
                 rotateSelected();
@@ -86,64 +85,25 @@ public class PlacementController implements Initializable {
     }
 
     private void buildGrid() {
-        playerGrid.getChildren().clear();
-
-        playerGrid.getColumnConstraints().clear();
-        playerGrid.getRowConstraints().clear();
-
-        for (int i = 0; i < 10; i++) {
-            ColumnConstraints colConst = new ColumnConstraints();
-            colConst.setPrefWidth(40);
-            colConst.setMinWidth(40);
-            colConst.setMaxWidth(40);
-            playerGrid.getColumnConstraints().add(colConst);
-
-            RowConstraints rowConst = new RowConstraints();
-            rowConst.setPrefHeight(40);
-            rowConst.setMinHeight(40);
-            rowConst.setMaxHeight(40);
-            playerGrid.getRowConstraints().add(rowConst);
-        }
+        playerGrid.fill(WATER);
 
-        for (int row = 0; row < 10; row++) {
-            for (int col = 0; col < 10; col++) {
-                StackPane cell = new StackPane();
-                cell.setAlignment(Pos.CENTER);
-                Rectangle rect = new Rectangle(38, 38);
-                rect.setFill(WATER);
-                rect.setStroke(LINE);
-                rect.setStrokeWidth(1);
-
-                final int r = row;
-                final int c = col;
-
-                rect.setOnMouseEntered(e -> {
-                    if (selectedShipType != null) {
-                        lastHighlightRow = r;
-                        lastHighlightCol = c;
-                        highlight(r, c);
-                    }
-                });
-
-                rect.setOnMouseExited(e -> {
-                    lastHighlightRow = -1;
-                    lastHighlightCol = -1;
-                    clearHighlight();
-                });
-
-                rect.setOnMouseMoved(e -> {
-                    if (selectedShipType != null) {
-                        lastHighlightRow = r;
-                        lastHighlightCol = c;
-                    }
-                });
-
-                rect.setOnMouseClicked(e -> onFieldClick(r, c));
-
-                cell.getChildren().add(rect);
-                playerGrid.add(cell, col, row);
+        playerGrid.setOnCellEntered((r, c) -> {
+            if (selectedShipType != null) {
+                lastHighlightRow = r;
+                lastHighlightCol = c;
+                highlight(r, c);
+            } else {
+                clearHighlight();
             }
-        }
+        });
+
+        playerGrid.setOnBoardExited(() -> {
+            lastHighlightRow = -1;
+            lastHighlightCol = -1;
+            clearHighlight();
+        });
+
+        playerGrid.setOnCellClicked(this::onFieldClick);
     }
 
     private void initShipCounts() {
@@ -206,11 +166,9 @@ public class PlacementController implements Initializable {
 
     private void onFieldClick(int row, int col) {
         if (selectedShipType == null) {
-            for (Ship ship : game.playerShips) {
-                if (isCellInShip(row, col, ship)) {
-                    removeShip(ship);
-                    return;
-                }
+            Ship ship = game.playerShipIndex.at(row, col);
+            if (ship != null) {
+                removeShip(ship);
             }
             return;
         }
@@ -233,22 +191,14 @@ public class PlacementController implements Initializable {
         }
     }
 
-    private boolean isCellInShip(int row, int col, Ship ship) {
-        for (int[] cell : ship.cells) {
-            if (cell[0] == row && cell[1] == col) return true;
-        }
-        return false;
-    }
-
     private void removeShip(Ship shipToRemove) {
         int size = shipToRemove.size;
 
         availableShips.put(size, availableShips.get(size) + 1);
 
-        game.playerShips.removeIf(s -> s == shipToRemove);
+        game.removePlayerShip(shipToRemove);
         for (int[] cell : shipToRemove.cells) {
-            game.playerField[cell[0]][cell[1]] = false;
-            getCellRect(cell[0], cell[1]).setFill(WATER);
+            playerGrid.setCell(cell[0], cell[1], WATER);
         }
 
         updateShipVisuals();
@@ -258,40 +208,11 @@ public class PlacementController implements Initializable {
 
     private boolean canPlace(int row, int col) {
         if (selectedShipType == null) return false;
-
-        if (isVertical && row + selectedSize > 10) return false;
-        if (!isVertical && col + selectedSize > 10) return false;
-
-        for (int i = 0; i < selectedSize; i++) {
-            int r = isVertical ? row + i : row;
-            int c = isVertical ? col : col + i;
-
-            if (game.playerField[r][c]) return false;
-
-            for (int dr = -1; dr <= 1; dr++) {
-                for (int dc = -1; dc <= 1; dc++) {
-                    int nr = r + dr;
-                    int nc = c + dc;
-                    if (nr >= 0 && nr < 10 && nc >= 0 && nc < 10 && game.playerField[nr][nc]) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+        return canPlace(row, col, selectedSize, isVertical);
     }
 
     private void placeShip(int row, int col) {
-        Ship ship = new Ship(selectedSize);
-        ship.isVertical = isVertical;
-        for (int i = 0; i < selectedSize; i++) {
-            int r = isVertical ? row + i : row;
-            int c = isVertical ? col : col + i;
-            game.playerField[r][c] = true;
-            ship.cells.add(new int[]{r, c});
-            getCellRect(r, c).setFill(SHIP);
-        }
-        game.playerShips.add(ship);
+        placeManual(row, col, selectedSize, isVertical);
     }
 
     private void highlight(int row, int col) {
@@ -304,37 +225,21 @@ public class PlacementController implements Initializable {
         for (int i = 0; i < selectedSize; i++) {
             int r = isVertical ? row + i : row;
             int c = isVertical ? col : col + i;
-            if (r < 10 && c < 10) {
-                getCellRect(r, c).setFill(color);
+            if (r < Board.SIZE && c < Board.SIZE) {
+                playerGrid.setCell(r, c, color);
             }
         }
     }
 
     private void clearHighlight() {
-        for (int r = 0; r < 10; r++) {
-            for (int c = 0; c < 10; c++) {
-                Color fillColor = game.playerField[r][c] ? SHIP : WATER;
-                getCellRect(r, c).setFill(fillColor);
+        for (int r = 0; r < Board.SIZE; r++) {
+            for (int c = 0; c < Board.SIZE; c++) {
+                Color fillColor = game.playerBoard.get(r, c) ? SHIP : WATER;
+                playerGrid.setCell(r, c, fillColor);
             }
         }
     }
 
-    private Rectangle getCellRect(int row, int col) {
-        Node cell = getCellNode(row, col);
-        return cell != null ? (Rectangle) ((StackPane) cell).getChildren().get(0) : null;
-    }
-
-    private Node getCellNode(int row, int col) {
-        for (Node node : playerGrid.getChildren()) {
-            Integer r = GridPane.getRowIndex(node);
-            Integer c = GridPane.getColumnIndex(node);
-            if ((r == null ? 0 : r) == row && (c == null ? 0 : c) == col) {
-                return node;
-            }
-        }
-        return null;
-    }
-
     private void updateShipVisuals() {
         count4Label.setText("×" + availableShips.get(4));
         count3Label.setText("×" + availableShips.get(3));
@@ -361,22 +266,12 @@ public class PlacementController implements Initializable {
     @FXML
     private void onRandomPlacement() {
         clearBoard();
-        Random rnd = new Random();
-        int[] sizes = {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
-
         initShipCounts();
 
-        for (int size : sizes) {
-            while (true) {
-                boolean v = rnd.nextBoolean();
-                int row = rnd.nextInt(v ? 10 : 11 - size);
-                int col = rnd.nextInt(v ? 11 - size : 10);
-                if (canPlace(row, col, size, v)) {
-                    placeManual(row, col, size, v);
-                    availableShips.put(size, availableShips.get(size) - 1);
-                    break;
-                }
-            }
+        for (int p : new FleetGenerator().next()) {
+            int size = FleetGenerator.size(p);
+            placeManual(FleetGenerator.row(p), FleetGenerator.col(p), size, FleetGenerator.vertical(p));
+            availableShips.put(size, availableShips.get(size) - 1);
         }
 
         statusLabel.setText("Расставлено случайно!");
@@ -385,36 +280,14 @@ public class PlacementController implements Initializable {
     }
 
     private boolean canPlace(int row, int col, int size, boolean vertical) {
-        if (vertical && row + size > 10) return false;
-        if (!vertical && col + size > 10) return false;
-        for (int i = 0; i < size; i++) {
-            int r = vertical ? row + i : row;
-            int c = vertical ? col : col + i;
-            if (game.playerField[r][c]) return false;
-            for (int dr = -1; dr <= 1; dr++) {
-                for (int dc = -1; dc <= 1; dc++) {
-                    int nr = r + dr;
-                    int nc = c + dc;
-                    if (nr >= 0 && nr < 10 && nc >= 0 && nc < 10 && game.playerField[nr][nc]) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+        return game.canPlacePlayerShip(row, col, size, vertical);
     }
 
     private void placeManual(int row, int col, int size, boolean vertical) {
-        Ship ship = new Ship(size);
-        ship.isVertical = vertical;
-        for (int i = 0; i < size; i++) {
-            int r = vertical ? row + i : row;
-            int c = vertical ? col : col + i;
-            game.playerField[r][c] = true;
-            ship.cells.add(new int[]{r, c});
-            getCellRect(r, c).setFill(SHIP);
+        Ship ship = game.placePlayerShip(row, col, size, vertical);
+        for (int[] cell : ship.cells) {
+            playerGrid.setCell(cell[0], cell[1], SHIP);
         }
-        game.playerShips.add(ship);
     }
 
     @FXML
@@ -423,11 +296,17 @@ public class PlacementController implements Initializable {
     }
 
     private void clearBoard() {
-        for (boolean[] row : game.playerField) Arrays.fill(row, false);
-        game.playerShips.clear();
+        game.clearPlayerField();
 
         initShipCounts();
+        deselect();
+        buildGrid();
+        updateShipVisuals();
+        statusLabel.setText("Поле очищено.");
+        checkReady();
+    }
 
+    private void deselect() {
         if (selectedShip != null) {
             selectedShip.setScaleX(1.0);
             selectedShip.setScaleY(1.0);
@@ -435,15 +314,10 @@ public class PlacementController implements Initializable {
             selectedShip = null;
             selectedShipType = null;
         }
-
-        buildGrid();
-        updateShipVisuals();
-        statusLabel.setText("Поле очищено.");
-        checkReady();
     }
 
     private void checkReady() {
-        boolean ready = game.playerShips.size() == 10;
+        boolean ready = game.playerShips.size() == Rules.FLEET.length;
         readyButton.setDisable(!ready);
         if (ready) {
             statusLabel.setText("Все корабли расставлены! Нажмите «Готов!»");
@@ -457,18 +331,14 @@ public class PlacementController implements Initializable {
             if (difficulty == null) difficulty = "Средний";
             game.difficulty = difficulty;
 
-            out.writeObject(new Message(MessageType.PLACE_SHIPS, game));
-            out.flush();
+            if (!connection.send(new Message(MessageType.PLACE_SHIPS, game))) {
+                statusLabel.setText("Ошибка связи");
+                return;
+            }
             statusLabel.setText("Ожидаем начала боя...");
 
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/battleship/client/view/game.fxml"));
-            Stage stage = (Stage) statusLabel.getScene().getWindow();
-            stage.setScene(new Scene(loader.load(), 1300, 800));
-            stage.centerOnScreen();
-            stage.setTitle("Морской бой — Битва");
-
-            GameController controller = loader.getController();
-            controller.initGame(game, out, in);
+            GameController controller = Screens.show(Screens.Screen.GAME);
+            controller.initGame(game, connection);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -0,0 +1,140 @@
+package com.battleship.client.controller;
+
+import com.battleship.client.net.Connection;
+import com.battleship.client.net.MessageHandler;
+import com.battleship.client.view.BoardView;
+import com.battleship.client.view.Screens;
+import com.battleship.client.view.TileBoardView;
+import com.battleship.common.Board;
+import com.battleship.common.GameState;
+import com.battleship.common.GameSync;
+import com.battleship.common.LiveGame;
+import com.battleship.common.Message;
+import com.battleship.common.MessageType;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.paint.Color;
+
+/**
+ * Наблюдение за партиями сервера: все видимые партии — плитками, выбранная
+ * щелчком — крупно, с полной детализацией. Сервер сам прореживает
+ * обновления до одного на партию за тик, экран применяет их раз в кадр.
+ */
+public class SpectatorController implements MessageHandler {
+
+    private static final Color WATER = Color.web("#1e1e2e");
+    private static final Color SHIP = Color.web("#89b4fa");
+    private static final Color HIT = Color.web("#f38ba8");
+    private static final Color MISS = Color.web("#585b70");
+
+    @FXML private Label statusLabel;
+    @FXML private Label focusLabel;
+    @FXML private TileBoardView tiles;
+    @FXML private BoardView playerGrid;
+    @FXML private BoardView computerGrid;
+
+    private String username;
+    private Connection connection;
+    private int focused = -1;
+    private long updates;
+
+    @FXML private void initialize() {
+        tiles.setOnTileClicked(this::focus);
+    }
+
+    public void initData(String username, Connection connection) {
+        this.username = username;
+        this.connection = connection;
+        tiles.clear();
+        focus(-1);
+        updates = 0;
+        statusLabel.setText("Подключаемся к партиям...");
+        connection.attach(this);
+        connection.send(new Message(MessageType.SPECTATE));
+    }
+
+    @Override
+    public void handle(Message msg) {
+        switch (msg.getType()) {
+            case SPECTATE_UPDATE -> {
+                for (LiveGame game : (LiveGame[]) msg.getPayload()) {
+                    tiles.update(game);
+                    if (game.id == focused) showFocused(game);
+                    updates++;
+                }
+                statusLabel.setText("Партий на экране: " + tiles.count() + "   ·   обновлений: " + updates);
+            }
+            case ERROR -> statusLabel.setText("Ошибка: " + msg.getPayload());
+            default -> { }
+        }
+    }
+
+    @Override
+    public void connectionState(Connection.State state) {
+        if (state == Connection.State.RECONNECTING) {
+            statusLabel.setText("Связь потеряна, переподключаемся...");
+        } else if (state == Connection.State.READY) {
+            // подписка живёт в подключении — после переподключения начинаем с полного списка
+            tiles.clear();
+            focus(-1);
+            connection.send(new Message(MessageType.SPECTATE));
+        }
+    }
+
+    @Override
+    public void disconnected() {
+        statusLabel.setText("Соединение потеряно");
+    }
+
+    private void focus(int id) {
+        focused = id;
+        tiles.setFocused(id);
+        playerGrid.fill(WATER);
+        computerGrid.fill(WATER);
+        focusLabel.setText("Выберите партию");
+        LiveGame game = id >= 0 ? tiles.get(id) : null;
+        if (game != null) showFocused(game);
+    }
+
+    // полная детализация только у выбранной партии; неизменные клетки BoardView не перерисует
+    private void showFocused(LiveGame game) {
+        if (game.isEnded()) {
+            focusLabel.setText("Партия №" + game.id + " закончилась");
+            return;
+        }
+        Board ships = game.boards[GameSync.MY_SHIPS];
+        Board shotsAtMe = game.boards[GameSync.SHOTS_AT_ME];
+        Board myShots = game.boards[GameSync.MY_SHOTS];
+        Board myHits = game.boards[GameSync.MY_HITS];
+        for (int i = 0; i < Board.CELLS; i++) {
+            int row = i / Board.SIZE, col = i % Board.SIZE;
+            playerGrid.setCell(row, col, shotsAtMe.get(i) ? (ships.get(i) ? HIT : MISS) : ships.get(i) ? SHIP : WATER);
+            computerGrid.setCell(row, col, myShots.get(i) ? (myHits.get(i) ? HIT : MISS) : WATER);
+        }
+        focusLabel.setText(game.player + " — " + describe(game.state));
+    }
+
+    private static String describe(GameState state) {
+        return switch (state) {
+            case PLAYER_TURN -> "ход игрока";
+            case COMPUTER_TURN -> "ход компьютера";
+            case PLAYER_WON -> "победа игрока";
+            case COMPUTER_WON -> "победа компьютера";
+            default -> "расстановка";
+        };
+    }
+
+    @FXML
+    private void onExit() {
+        try {
+            connection.detach(this);
+            connection.send(new Message(MessageType.SPECTATE, Boolean.FALSE));
+            LobbyController controller = Screens.show(Screens.Screen.LOBBY);
+            controller.initData(username, connection);
+            controller.startListening();
+        } catch (Exception e) {
+            e.printStackTrace();
+            statusLabel.setText("Ошибка при переходе в меню");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.battleship.client.local;
+
+import com.battleship.common.User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Учётные записи встроенного сервера, только в памяти. */
+public class Accounts {
+
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    public boolean register(String login, String password) {
+        byte[] saltBytes = new byte[16];
+        random.nextBytes(saltBytes);
+        String salt = Base64.getEncoder().encodeToString(saltBytes);
+        return users.putIfAbsent(login, new User(login, hash(password, salt), salt)) == null;
+    }
+
+    public boolean check(String login, String password) {
+        User user = users.get(login);
+        return user != null && MessageDigest.isEqual(
+                user.getPasswordHash().getBytes(StandardCharsets.UTF_8),
+                hash(password, user.getSalt()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hash(String password, String salt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.battleship.client.local;
+
+import com.battleship.common.Board;
+import com.battleship.common.Game;
+import com.battleship.common.GameSync;
+import com.battleship.common.LiveGame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Идущие на встроенном сервере партии для наблюдателей. Сессии игроков
+ * только отмечают, что партия изменилась; наблюдатель раз в тик сервера
+ * забирает изменившиеся с прошлого раза партии целиком — серия выстрелов
+ * между тиками уходит одним обновлением. Всё — в потоке селектора
+ * {@link LocalServer}, без блокировок.
+ */
+public class LiveGames {
+
+    /** Сколько партий одновременно показывается одному наблюдателю. */
+    static final int MAX_WATCHED = 64;
+
+    private static final class Entry {
+        final int id;
+        final String player;
+        final Game game;
+        final ServerSession.State owner;
+        int version;
+
+        Entry(int id, String player, Game game, ServerSession.State owner) {
+            this.id = id;
+            this.player = player;
+            this.game = game;
+            this.owner = owner;
+        }
+    }
+
+    private final Map<Integer, Entry> games = new LinkedHashMap<>();
+    private int nextId = 1;
+
+    int start(String player, Game game, ServerSession.State owner) {
+        int id = nextId++;
+        games.put(id, new Entry(id, player, game, owner));
+        return id;
+    }
+
+    void changed(int id) {
+        Entry entry = games.get(id);
+        if (entry != null) entry.version++;
+    }
+
+    void end(int id) {
+        games.remove(id);
+    }
+
+    /** Брошенные партии уходят вместе с сессией: продолжить их уже нельзя. */
+    void purge() {
+        games.values().removeIf(entry -> entry.owner.idleMillis() > Sessions.TTL_MS);
+    }
+
+    int size() {
+        return games.size();
+    }
+
+    Spectator subscribe() {
+        return new Spectator();
+    }
+
+    private static LiveGame snapshot(Entry entry) {
+        GameSync view = GameSync.forPlayer(entry.game);
+        Board[] boards = new Board[GameSync.BOARDS];
+        for (int i = 0; i < boards.length; i++) boards[i] = view.board(i);
+        return new LiveGame(entry.id, entry.player, entry.game.state, boards);
+    }
+
+    /** Что один наблюдатель уже видел: номер партии → версия. */
+    final class Spectator {
+
+        private final Map<Integer, Integer> seen = new HashMap<>();
+
+        /** Изменения с прошлого вызова: новые и изменившиеся партии, закончившиеся — пустыми. */
+        List<LiveGame> poll() {
+            List<LiveGame> changes = new ArrayList<>();
+            for (Iterator<Integer> it = seen.keySet().iterator(); it.hasNext(); ) {
+                int id = it.next();
+                if (!games.containsKey(id)) {
+                    changes.add(LiveGame.ended(id));
+                    it.remove();
+                }
+            }
+            for (Entry entry : games.values()) {
+                Integer version = seen.get(entry.id);
+                if (version == null && seen.size() >= MAX_WATCHED) continue;
+                if (version != null && version == entry.version) continue;
+                seen.put(entry.id, entry.version);
+                changes.add(snapshot(entry));
+            }
+            return changes;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.battleship.client.local;
+
+import com.battleship.client.concurrent.Tasks;
+import com.battleship.client.save.GameStore;
+import com.battleship.common.Message;
+import com.battleship.common.MessageCodec;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Встроенный игровой сервер на loopback: один поток с селектором обслуживает
+ * все подключения, говорит двоичным протоколом с тем же рукопожатием, что
+ * ждёт клиент, а правила и ИИ берёт из {@link ServerSession}. Раз в
+ * {@link #TICK_MS} тот же поток рассылает наблюдателям изменения партий.
+ */
+public class LocalServer implements AutoCloseable {
+
+    static final long TICK_MS = 100;
+
+    private static LocalServer shared;
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Accounts accounts = new Accounts();
+    private final Sessions registry = new Sessions();
+    private final LiveGames live = new LiveGames();
+    private final GameStore store;
+    private volatile boolean running = true;
+    private volatile int sessions;
+
+    private LocalServer(int port, GameStore store) throws IOException {
+        this.store = store;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /** Сервер без сохранения партий — для нагрузочных прогонов. */
+    public static LocalServer start(int port) throws IOException {
+        return start(port, null);
+    }
+
+    public static LocalServer start(int port, GameStore store) throws IOException {
+        LocalServer localServer = new LocalServer(port, store);
+        Tasks.submit(localServer::loop);
+        return localServer;
+    }
+
+    /** Общий экземпляр на свободном порту — для игры без внешнего сервера. */
+    public static synchronized LocalServer shared() throws IOException {
+        if (shared == null || !shared.running) {
+            shared = start(0, GameStore.sharedOrNull());
+        }
+        return shared;
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public int activeSessions() {
+        return sessions;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void loop() {
+        long nextTick = System.nanoTime();
+        try {
+            while (running) {
+                selector.select(TICK_MS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        if (key.isValid() && key.isReadable()) read(key);
+                        if (key.isValid() && key.isWritable()) write(key);
+                    } catch (IOException | RuntimeException e) {
+                        drop(key);
+                    }
+                }
+                if (System.nanoTime() - nextTick >= 0) {
+                    nextTick = System.nanoTime() + TICK_MS * 1_000_000;
+                    tick();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException ignored) {
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Peer peer = new Peer();
+            ByteBuffer hello = ByteBuffer.allocate(5);
+            hello.putInt(MessageCodec.MAGIC).put((byte) MessageCodec.VERSION).flip();
+            peer.out.add(hello);
+            channel.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE, peer);
+            sessions++;
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Peer peer = (Peer) key.attachment();
+        int n = channel.read(peer.in);
+        if (n < 0) {
+            drop(key);
+            return;
+        }
+
+        peer.in.flip();
+        while (true) {
+            if (peer.session == null) {
+                if (peer.in.remaining() < 5) break;
+                if (peer.in.getInt() != MessageCodec.MAGIC) throw new StreamCorruptedException("Нет рукопожатия");
+                peer.session = new ServerSession(accounts, registry, live, store, peer.in.get());
+                continue;
+            }
+            if (peer.in.remaining() < 4) break;
+            int length = peer.in.getInt(peer.in.position());
+            if (length <= 0 || length > MessageCodec.MAX_FRAME) throw new StreamCorruptedException("Кадр " + length);
+            if (peer.in.remaining() < 4 + length) {
+                if (4 + length > peer.in.capacity()) peer.grow(4 + length);
+                break;
+            }
+            peer.in.getInt();
+            byte[] body = new byte[length];
+            peer.in.get(body);
+            reply(peer, peer.session.handle(MessageCodec.decode(body)));
+        }
+        peer.in.compact();
+
+        if (!peer.out.isEmpty()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void tick() {
+        live.purge();
+        for (SelectionKey key : selector.keys()) {
+            if (!key.isValid() || !(key.attachment() instanceof Peer peer) || peer.session == null) continue;
+            // прошлое обновление ещё не ушло — медленный наблюдатель получит сразу сводное
+            if (!peer.out.isEmpty()) continue;
+            try {
+                List<Message> updates = peer.session.tick();
+                if (updates.isEmpty()) continue;
+                reply(peer, updates);
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } catch (IOException | RuntimeException e) {
+                drop(key);
+            }
+        }
+    }
+
+    private void reply(Peer peer, List<Message> replies) throws IOException {
+        for (Message msg : replies) {
+            byte[] body = MessageCodec.encode(msg);
+            ByteBuffer frame = ByteBuffer.allocate(4 + body.length);
+            frame.putInt(body.length).put(body).flip();
+            peer.out.add(frame);
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Peer peer = (Peer) key.attachment();
+        while (!peer.out.isEmpty()) {
+            ByteBuffer head = peer.out.peek();
+            channel.write(head);
+            if (head.hasRemaining()) return;
+            peer.out.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void drop(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+        if (key.attachment() instanceof Peer) sessions--;
+    }
+
+    private static final class Peer {
+        ByteBuffer in = ByteBuffer.allocate(4096);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        ServerSession session;
+
+        // вызывается, когда буфер в режиме чтения (после flip)
+        void grow(int capacity) {
+            ByteBuffer bigger = ByteBuffer.allocate(capacity);
+            bigger.put(in);
+            bigger.flip();
+            in = bigger;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.battleship.client.local;
+
+import com.battleship.client.ai.OfflineGame;
+import com.battleship.client.save.GameStore;
+import com.battleship.common.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Логика одного подключения встроенного сервера, без ввода-вывода:
+ * принимает сообщение клиента и возвращает ответы. Клиентам с версией
+ * протокола 2+ выстрелы уходят дельтами STATE_DELTA, с версией 3+ после
+ * входа выдаётся токен сессии: по RESUME новое подключение продолжает ту же
+ * сессию и получает только пропущенные дельты. С версией 5+ можно
+ * наблюдать за чужими партиями: после SPECTATE сервер раз в тик присылает
+ * SPECTATE_UPDATE с изменившимися партиями. С версией 6+ клиент при
+ * простое шлёт PING и получает его обратно.
+ */
+public class ServerSession {
+
+    /** Всё, что переживает обрыв соединения. */
+    public static final class State {
+        private String user;
+        private OfflineGame game;
+        private GameSync sync;
+        private GameStore.Journal journal;
+        // номер партии в LiveGames, 0 — партии нет
+        private int liveId;
+        // всё, что ушло клиенту в текущей партии: дельты и GAME_OVER, для повтора после RESUME
+        private final List<Message> sent = new ArrayList<>();
+        private volatile long lastSeen = System.currentTimeMillis();
+
+        void touch() {
+            lastSeen = System.currentTimeMillis();
+        }
+
+        long idleMillis() {
+            return System.currentTimeMillis() - lastSeen;
+        }
+
+        private void endGame() {
+            if (journal != null) journal.close();
+            journal = null;
+            game = null;
+            sync = null;
+            sent.clear();
+        }
+    }
+
+    private final Accounts accounts;
+    private final Sessions sessions;
+    private final LiveGames live;
+    private final GameStore store;
+    private final int version;
+    private State state = new State();
+    private LiveGames.Spectator spectator;
+
+    /** {@code store} — куда сохранять партии, null — не сохранять (нагрузочные прогоны). */
+    public ServerSession(Accounts accounts, Sessions sessions, LiveGames live, GameStore store, int version) {
+        this.accounts = accounts;
+        this.sessions = sessions;
+        this.live = live;
+        this.store = store;
+        this.version = version;
+    }
+
+    /** Сессия одного игрока без сети: вход уже выполнен, партии видны только ему. */
+    public static ServerSession local(String user, GameStore store) {
+        ServerSession session = new ServerSession(new Accounts(), new Sessions(), new LiveGames(), store,
+                MessageCodec.VERSION);
+        session.state.user = user;
+        return session;
+    }
+
+    /** Подключение закрыто насовсем: текущая партия остаётся в сохранениях. */
+    public void close() {
+        endGame();
+    }
+
+    public String getUser() {
+        return state.user;
+    }
+
+    public List<Message> handle(Message msg) {
+        List<Message> replies = new ArrayList<>(2);
+        state.touch();
+        switch (msg.getType()) {
+            case REGISTER -> {
+                String[] credentials = pair(msg.getPayload());
+                if (credentials == null) {
+                    replies.add(new Message(MessageType.ERROR, "Неверный запрос"));
+                    break;
+                }
+                if (accounts.register(credentials[0], credentials[1])) {
+                    replies.add(new Message(MessageType.REGISTER_SUCCESS, "Регистрация успешна, войдите"));
+                } else {
+                    replies.add(new Message(MessageType.REGISTER_FAIL, "Логин уже занят"));
+                }
+            }
+            case LOGIN -> {
+                String[] credentials = pair(msg.getPayload());
+                if (credentials == null) {
+                    replies.add(new Message(MessageType.ERROR, "Неверный запрос"));
+                    break;
+                }
+                if (accounts.check(credentials[0], credentials[1])) {
+                    state = new State();
+                    state.user = credentials[0];
+                    replies.add(new Message(MessageType.LOGIN_SUCCESS, state.user));
+                    if (version >= 3) {
+                        replies.add(new Message(MessageType.SESSION_TOKEN, sessions.issue(state)));
+                    }
+                } else {
+                    replies.add(new Message(MessageType.LOGIN_FAIL, "Неверный логин или пароль"));
+                }
+            }
+            case RESUME -> {
+                String[] resume = pair(msg.getPayload());
+                int lastSeq = resume != null ? parseSeq(resume[1]) : -1;
+                if (lastSeq < 0) {
+                    replies.add(new Message(MessageType.RESUME_FAIL, "Неверный запрос"));
+                    break;
+                }
+                State resumed = sessions.find(resume[0]);
+                if (resumed == null) {
+                    replies.add(new Message(MessageType.RESUME_FAIL, "Сессия истекла"));
+                    break;
+                }
+                state = resumed;
+                // клиент по номеру поймёт, дошли ли до сервера его неподтверждённые выстрелы
+                replies.add(new Message(MessageType.RESUME_OK, new int[]{state.sync != null ? state.sync.lastSeq() : 0}));
+                replayAfter(lastSeq, replies);
+            }
+            case START_NEW_GAME -> {
+                if (!loggedIn(replies)) break;
+                endGame();
+                replies.add(new Message(MessageType.GAME_STATE, new Game(state.user)));
+            }
+            case PLACE_SHIPS -> {
+                if (!loggedIn(replies)) break;
+                if (!(msg.getPayload() instanceof Game placed) || !validFleet(placed)) {
+                    replies.add(new Message(MessageType.ERROR, "Неверная расстановка"));
+                    break;
+                }
+                endGame();
+                state.game = new OfflineGame(placed);
+                state.sync = GameSync.forPlayer(placed);
+                if (store != null) state.journal = store.create(state.game);
+                state.liveId = live.start(state.user, state.game.getGame(), state);
+            }
+            case GAME_LIST -> {
+                if (!loggedIn(replies)) break;
+                replies.add(new Message(MessageType.GAME_LIST, store != null ? store.list(state.user) : new SavedGame[0]));
+            }
+            case CONTINUE_GAME -> {
+                if (!loggedIn(replies)) break;
+                if (!(msg.getPayload() instanceof int[] id) || id.length != 1) {
+                    replies.add(new Message(MessageType.ERROR, "Неверный запрос"));
+                    break;
+                }
+                endGame();
+                GameStore.Journal journal = store != null ? store.open(id[0], state.user) : null;
+                if (journal == null) {
+                    replies.add(new Message(MessageType.ERROR, "Сохранение не найдено"));
+                    break;
+                }
+                state.journal = journal;
+                state.game = journal.game();
+                state.sync = GameSync.forPlayer(state.game.getGame());
+                state.liveId = live.start(state.user, state.game.getGame(), state);
+                replies.add(new Message(MessageType.GAME_STATE, state.game.getGame()));
+            }
+            case SHOT -> {
+                if (state.game == null || state.game.isOver()) {
+                    replies.add(new Message(MessageType.ERROR, "Игра не идёт"));
+                    break;
+                }
+                if (!(msg.getPayload() instanceof int[] cell) || cell.length != 2) {
+                    replies.add(new Message(MessageType.ERROR, "Неверный выстрел"));
+                    break;
+                }
+                List<Message> results = state.game.playerShot(cell[0], cell[1]);
+                if (state.journal != null) state.journal.append(results);
+                live.changed(state.liveId);
+                if (version >= 2) {
+                    toDeltas(results, replies);
+                    state.sent.addAll(replies);
+                } else {
+                    // клиенты первой версии ждут ровно {row, col, hit}
+                    for (Message result : results) replies.add(withoutSunk(result));
+                }
+            }
+            case RESYNC_REQUEST -> {
+                if (!(msg.getPayload() instanceof int[] request) || request.length != 1 + GameSync.BOARDS) {
+                    replies.add(new Message(MessageType.ERROR, "Неверный запрос"));
+                    break;
+                }
+                if (state.sync != null) {
+                    SyncSnapshot snapshot = state.sync.snapshotFor(request);
+                    if (version >= 4) {
+                        snapshot = new SyncSnapshot(snapshot.seq, snapshot.state, snapshot.boards, sunkComputerShips());
+                    }
+                    replies.add(new Message(MessageType.RESYNC, snapshot));
+                }
+            }
+            case GAME_OVER -> {
+                if (state.game != null && !state.game.isOver()) {
+                    state.game.getGame().state = GameState.COMPUTER_WON;
+                    if (state.journal != null) state.journal.discard();
+                    live.changed(state.liveId);
+                    replies.add(new Message(MessageType.GAME_OVER, false));
+                }
+            }
+            case SPECTATE -> {
+                if (!loggedIn(replies)) break;
+                if (Boolean.FALSE.equals(msg.getPayload())) {
+                    spectator = null;
+                    break;
+                }
+                spectator = live.subscribe();
+                replies.add(new Message(MessageType.SPECTATE_UPDATE, spectator.poll().toArray(new LiveGame[0])));
+            }
+            case LOBBY_ENTER -> endGame();
+            // клиент проверяет, что связь жива: ответ сбрасывает его таймаут чтения
+            case PING -> replies.add(msg);
+            default -> replies.add(new Message(MessageType.ERROR, "Не поддерживается: " + msg.getType()));
+        }
+        return replies;
+    }
+
+    /** Тик сервера: наблюдателю — изменившиеся партии, если они есть. */
+    public List<Message> tick() {
+        if (spectator == null) return List.of();
+        List<LiveGame> changes = spectator.poll();
+        if (changes.isEmpty()) return List.of();
+        return List.of(new Message(MessageType.SPECTATE_UPDATE, changes.toArray(new LiveGame[0])));
+    }
+
+    private void endGame() {
+        if (state.liveId != 0) live.end(state.liveId);
+        state.liveId = 0;
+        state.endGame();
+    }
+
+    /** Повторяет всё, что ушло в текущей партии после дельты {@code lastSeq}. */
+    private void replayAfter(int lastSeq, List<Message> replies) {
+        for (int i = 0; i < state.sent.size(); i++) {
+            Message msg = state.sent.get(i);
+            if (msg.getPayload() instanceof StateDelta delta && delta.seq > lastSeq) {
+                replies.addAll(state.sent.subList(i, state.sent.size()));
+                return;
+            }
+        }
+    }
+
+    /** Пара строк REGISTER, LOGIN и RESUME; null — клиент прислал что-то другое. */
+    private static String[] pair(Object payload) {
+        return payload instanceof String[] p && p.length == 2 && p[0] != null && p[1] != null ? p : null;
+    }
+
+    /** Номер последней дельты клиента; -1 — не число. */
+    private static int parseSeq(String text) {
+        try {
+            return Math.max(-1, Integer.parseInt(text));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private boolean loggedIn(List<Message> replies) {
+        if (state.user == null) {
+            replies.add(new Message(MessageType.ERROR, "Нужно войти"));
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean validFleet(Game game) {
+        if (game.playerShips.size() != Rules.FLEET.length) return false;
+        Board check = new Board();
+        int[] sizes = new int[Rules.MAX_SHIP + 1];
+        for (Ship ship : game.playerShips) {
+            if (ship.size < 1 || ship.size > Rules.MAX_SHIP || ship.cells.isEmpty()) return false;
+            int[] first = ship.cells.get(0);
+            if (!Rules.canPlace(check, first[0], first[1], ship.size, ship.isVertical)) return false;
+            Rules.place(check, new ArrayList<>(), first[0], first[1], ship.size, ship.isVertical);
+            sizes[ship.size]++;
+        }
+        for (int size : Rules.FLEET) sizes[size]--;
+        for (int n : sizes) {
+            if (n != 0) return false;
+        }
+        return check.equals(game.playerBoard);
+    }
+
+    private int[] sunkComputerShips() {
+        Game game = state.game.getGame();
+        return game.computerShips.stream()
+                .filter(ship -> Rules.isSunk(ship, game.computerHitsBoard))
+                .mapToInt(Rules::placement)
+                .toArray();
+    }
+
+    private static Message withoutSunk(Message result) {
+        if (result.getPayload() instanceof int[] r && r.length > 3) {
+            return new Message(result.getType(), Arrays.copyOf(r, 3));
+        }
+        return result;
+    }
+
+    private void toDeltas(List<Message> results, List<Message> replies) {
+        for (int i = 0; i < results.size(); i++) {
+            Message result = results.get(i);
+            switch (result.getType()) {
+                case SHOT_RESULT, OPPONENT_SHOT -> {
+                    int[] r = (int[]) result.getPayload();
+                    boolean mine = result.getType() == MessageType.SHOT_RESULT;
+                    boolean hit = r[2] == 1;
+                    // последний выстрел партии сразу несёт итоговое состояние, а не «ход игрока»
+                    boolean last = i + 1 < results.size() && results.get(i + 1).getType() == MessageType.GAME_OVER;
+                    GameState next = last ? state.game.getGame().state
+                            : mine == hit ? GameState.PLAYER_TURN : GameState.COMPUTER_TURN;
+                    // позицию потопленного корабля понимают только клиенты версии 4+
+                    Ship sunk = version >= 4 ? Rules.sunkShip(r) : null;
+                    replies.add(new Message(MessageType.STATE_DELTA, state.sync.record(
+                            mine ? StateDelta.SHOT : StateDelta.OPPONENT_SHOT, r[0], r[1], hit, next,
+                            sunk != null ? Rules.placement(sunk) : -1)));
+                }
+                case GAME_OVER -> {
+                    boolean won = (boolean) result.getPayload();
+                    replies.add(new Message(MessageType.STATE_DELTA, state.sync.record(
+                            StateDelta.STATE, 0, 0, false, won ? GameState.PLAYER_WON : GameState.COMPUTER_WON)));
+                    replies.add(result);
+                }
+                default -> replies.add(result);
+            }
+        }
+    }
+}
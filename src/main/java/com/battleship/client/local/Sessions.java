@@ -0,0 +1,45 @@
+package com.battleship.client.local;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сессии встроенного сервера по токену: после обрыва клиент присылает
+ * RESUME с токеном и получает прежнее состояние. Сессия, к которой
+ * никто не обращался дольше {@link #TTL_MS}, забывается.
+ */
+public class Sessions {
+
+    static final long TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<String, ServerSession.State> byToken = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    public String issue(ServerSession.State state) {
+        purge();
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String token = HexFormat.of().formatHex(bytes);
+        state.touch();
+        byToken.put(token, state);
+        return token;
+    }
+
+    public ServerSession.State find(String token) {
+        ServerSession.State state = token != null ? byToken.get(token) : null;
+        if (state == null) return null;
+        if (state.idleMillis() > TTL_MS) {
+            byToken.remove(token);
+            return null;
+        }
+        state.touch();
+        return state;
+    }
+
+    private void purge() {
+        byToken.values().removeIf(state -> state.idleMillis() > TTL_MS);
+    }
+}
@@ -0,0 +1,28 @@
+package com.battleship.client.metrics;
+
+import jdk.jfr.*;
+
+/** Модальный диалог: время до появления на экране; длительность — сколько он был открыт. */
+@Name("battleship.Dialog")
+@Label("Диалог")
+@Category({"Battleship", "Интерфейс"})
+public class DialogEvent extends Event {
+
+    @Label("Диалог")
+    public String dialog;
+
+    @Label("До показа")
+    @Timespan(Timespan.NANOSECONDS)
+    public long timeToShown;
+
+    private final long startNanos = System.nanoTime();
+
+    public DialogEvent(String dialog) {
+        this.dialog = dialog;
+        begin();
+    }
+
+    public void shown() {
+        timeToShown = System.nanoTime() - startNanos;
+    }
+}
@@ -0,0 +1,41 @@
+package com.battleship.client.metrics;
+
+import javafx.application.Platform;
+import jdk.jfr.*;
+
+/** Передача работы в поток JavaFX: сколько задача ждала в очереди и сколько выполнялась. */
+@Name("battleship.FxHandoff")
+@Label("Передача в поток JavaFX")
+@Category({"Battleship", "Интерфейс"})
+@StackTrace(false)
+public class FxHandoffEvent extends Event {
+
+    @Label("Источник")
+    public String source;
+
+    @Label("Ожидание в очереди")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueDelay;
+
+    @Label("Задач")
+    public int tasks = 1;
+
+    /** {@link Platform#runLater} с событием JFR; длительность события — выполнение задачи. */
+    public static void runLater(String source, Runnable action) {
+        long queuedAt = System.nanoTime();
+        Platform.runLater(() -> {
+            FxHandoffEvent event = new FxHandoffEvent();
+            event.queueDelay = System.nanoTime() - queuedAt;
+            event.begin();
+            try {
+                action.run();
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.source = source;
+                    event.commit();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package com.battleship.client.metrics;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасная гистограмма задержек в микросекундах с лог-линейными
+ * корзинами: 16 корзин на каждую степень двойки, ошибка перцентиля до 1/16.
+ * Запись — один инкремент без блокировок, память постоянная.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void record(long micros) {
+        if (micros < 0) micros = 0;
+        counts.incrementAndGet(bucket(micros));
+        total.incrementAndGet();
+        sum.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /** Перцентиль в микросекундах: верхняя граница корзины, не больше максимума. */
+    public long percentile(double p) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /** Добавляет к этой гистограмме значения другой. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        total.addAndGet(other.total.get());
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public String summary() {
+        return String.format("n=%d p50=%s p99=%s p999=%s max=%s",
+                count(), format(percentile(50)), format(percentile(99)),
+                format(percentile(99.9)), format(max()));
+    }
+
+    /**
+     * Распределение в текстовом формате HdrHistogram (.hgrm): значение в
+     * миллисекундах, перцентиль, накопленное число и 1/(1-перцентиль).
+     */
+    public void writePercentiles(PrintWriter out) {
+        out.printf("%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+        long n = total.get();
+        long seen = 0;
+        for (int i = 0; i < BUCKETS && n > 0; i++) {
+            long c = counts.get(i);
+            if (c == 0) continue;
+            seen += c;
+            double fraction = (double) seen / n;
+            String inverse = fraction < 1 ? String.format("%14.2f", 1 / (1 - fraction)) : "";
+            out.printf("%12.3f %2.12f %10d %s%n", Math.min(upperBound(i), max.get()) / 1000.0, fraction, seen, inverse);
+        }
+        out.printf("#[Mean    = %12.3f, Max            = %12.3f]%n", mean() / 1000.0, max() / 1000.0);
+        out.printf("#[Total count    = %12d]%n", n);
+    }
+
+    public static String format(long micros) {
+        if (micros < 1000) return micros + "us";
+        if (micros < 1_000_000) return String.format("%.1fms", micros / 1000.0);
+        return String.format("%.2fs", micros / 1_000_000.0);
+    }
+
+    static int bucket(long value) {
+        if (value < SUB) return (int) value;
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB) return bucket;
+        int exp = bucket / SUB + SUB_BITS - 1;
+        long sub = bucket % SUB;
+        return ((SUB + sub + 1) << (exp - SUB_BITS)) - 1;
+    }
+}
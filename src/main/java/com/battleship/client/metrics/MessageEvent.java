@@ -0,0 +1,48 @@
+package com.battleship.client.metrics;
+
+import com.battleship.common.Message;
+import jdk.jfr.*;
+
+/** Отправка или приём сообщения транспортом: тип, размер кадра и время кодирования. */
+@Name("battleship.Message")
+@Label("Сообщение")
+@Category({"Battleship", "Сеть"})
+@StackTrace(false)
+public class MessageEvent extends Event {
+
+    @Label("Направление")
+    public String direction;
+
+    @Label("Тип")
+    public String messageType;
+
+    @Label("Размер")
+    @DataAmount
+    public int bytes;
+
+    @Label("Кодирование")
+    @Timespan(Timespan.NANOSECONDS)
+    public long codecTime;
+
+    @Label("Транспорт")
+    public String transport;
+
+    public static void sent(String transport, Message msg, int bytes, long codecNanos) {
+        emit("send", transport, msg, bytes, codecNanos);
+    }
+
+    public static void received(String transport, Message msg, int bytes, long codecNanos) {
+        emit("receive", transport, msg, bytes, codecNanos);
+    }
+
+    private static void emit(String direction, String transport, Message msg, int bytes, long codecNanos) {
+        MessageEvent event = new MessageEvent();
+        if (!event.isEnabled()) return;
+        event.direction = direction;
+        event.transport = transport;
+        event.messageType = msg.getType().name();
+        event.bytes = bytes;
+        event.codecTime = codecNanos;
+        event.commit();
+    }
+}
@@ -0,0 +1,217 @@
+package com.battleship.client.metrics;
+
+import com.battleship.common.Message;
+import com.battleship.common.MessageType;
+import com.battleship.common.StateDelta;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Время ответа сервера по парам «запрос — ответ», как их видит клиент:
+ * отметка ставится в потоке записи сразу перед отправкой и в потоке чтения
+ * сразу после приёма, без очереди JavaFX. Отдельно копятся задержка доставки
+ * до экрана (клиентская часть) и время рукопожатия при подключении — оно
+ * почти целиком сетевое и служит базой, чтобы отличить медленную сеть от
+ * медленного сервера.
+ */
+public final class NetStats {
+
+    public enum Pair {
+        LOGIN("LOGIN → LOGIN_SUCCESS", MessageType.LOGIN,
+                Set.of(MessageType.LOGIN_SUCCESS, MessageType.LOGIN_FAIL)),
+        REGISTER("REGISTER → REGISTER_SUCCESS", MessageType.REGISTER,
+                Set.of(MessageType.REGISTER_SUCCESS, MessageType.REGISTER_FAIL)),
+        START_NEW_GAME("START_NEW_GAME → GAME_STATE", MessageType.START_NEW_GAME,
+                Set.of(MessageType.GAME_STATE)),
+        SHOT("SHOT → SHOT_RESULT", MessageType.SHOT,
+                Set.of(MessageType.SHOT_RESULT, MessageType.STATE_DELTA));
+
+        public final String label;
+        final MessageType request;
+        final Set<MessageType> responses;
+
+        // состояние ниже защищено монитором NetStats
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final ArrayDeque<Long> inFlight = new ArrayDeque<>();
+        long lastMicros = -1;
+        double jitterMicros;
+
+        Pair(String label, MessageType request, Set<MessageType> responses) {
+            this.label = label;
+            this.request = request;
+            this.responses = responses;
+        }
+    }
+
+    private static final Map<MessageType, Pair> BY_REQUEST = new EnumMap<>(MessageType.class);
+    private static final LatencyHistogram handshake = new LatencyHistogram();
+    private static final LatencyHistogram delivery = new LatencyHistogram();
+    private static long lastMicros = -1;
+    // очередь отправки: глубина, отказы при переполнении и сколько сообщений уходит одним сбросом
+    private static int outboxDepth;
+    private static int outboxMax;
+    private static long outboxRejected;
+    private static long flushes;
+    private static long flushedMessages;
+    // таблица ссылок потока объектов (только старый транспорт)
+    private static int streamObjects;
+    private static long streamBytes;
+    private static int streamObjectsMax;
+    private static long streamBytesMax;
+    private static long streamResets;
+
+    static {
+        for (Pair pair : Pair.values()) BY_REQUEST.put(pair.request, pair);
+    }
+
+    private NetStats() {
+    }
+
+    /** Вызывается потоком записи перед отправкой. */
+    public static synchronized void sent(Message msg, long nanos) {
+        Pair pair = BY_REQUEST.get(msg.getType());
+        if (pair != null) pair.inFlight.add(nanos);
+    }
+
+    /** Вызывается потоком чтения сразу после приёма. */
+    public static synchronized void received(Message msg, long nanos) {
+        MessageType type = msg.getType();
+        if (type == MessageType.ERROR) {
+            // отказ — незачем мерить, но и висеть запросу нельзя. Сервер отвечает
+            // по порядку, так что отклонён самый ранний из ждущих ответа запросов;
+            // очереди остальных пар не трогаем
+            Pair rejected = null;
+            for (Pair pair : Pair.values()) {
+                Long head = pair.inFlight.peek();
+                if (head != null && (rejected == null || head - rejected.inFlight.peek() < 0)) rejected = pair;
+            }
+            if (rejected != null) rejected.inFlight.poll();
+            return;
+        }
+        for (Pair pair : Pair.values()) {
+            if (!pair.responses.contains(type) || pair.inFlight.isEmpty()) continue;
+            if (type == MessageType.STATE_DELTA && ((StateDelta) msg.getPayload()).kind != StateDelta.SHOT) continue;
+            long micros = (nanos - pair.inFlight.poll()) / 1000;
+            pair.histogram.record(micros);
+            // сглаживание дрожания как в RFC 3550: J += (|D| - J) / 16
+            if (pair.lastMicros >= 0) {
+                pair.jitterMicros += (Math.abs(micros - pair.lastMicros) - pair.jitterMicros) / 16;
+            }
+            pair.lastMicros = micros;
+            lastMicros = micros;
+            return;
+        }
+    }
+
+    /** Задержка от приёма сообщения до его обработки экраном в потоке JavaFX. */
+    public static void delivered(long receivedNanos, long nanos) {
+        delivery.recordNanos(nanos - receivedNanos);
+    }
+
+    /** Глубина очереди отправки — при постановке и при выборке сообщения. */
+    public static synchronized void outbox(int depth) {
+        outboxDepth = depth;
+        outboxMax = Math.max(outboxMax, depth);
+    }
+
+    public static synchronized void outboxRejected() {
+        outboxRejected++;
+    }
+
+    /** Поток записи вытолкнул в сеть {@code messages} сообщений одним сбросом. */
+    public static synchronized void flushed(int messages) {
+        flushes++;
+        flushedMessages += messages;
+    }
+
+    /** Сколько держит таблица ссылок ObjectOutputStream после очередного сообщения. */
+    public static synchronized void streamRetained(int objects, long bytes) {
+        streamObjects = objects;
+        streamBytes = bytes;
+        streamObjectsMax = Math.max(streamObjectsMax, objects);
+        streamBytesMax = Math.max(streamBytesMax, bytes);
+    }
+
+    public static synchronized void streamReset(int objects, long bytes) {
+        streamRetained(objects, bytes);
+        streamObjects = 0;
+        streamBytes = 0;
+        streamResets++;
+    }
+
+    private static String streamSummary() {
+        return String.format("поток объектов: %d объектов / %d КиБ (пик %d / %d КиБ), сбросов %d",
+                streamObjects, streamBytes / 1024, streamObjectsMax, streamBytesMax / 1024, streamResets);
+    }
+
+    private static String outboxSummary() {
+        return String.format("очередь отправки: %d (макс %d), %.1f сообщ./сброс, отказов %d",
+                outboxDepth, outboxMax, flushes > 0 ? (double) flushedMessages / flushes : 0.0, outboxRejected);
+    }
+
+    public static void handshake(long nanos) {
+        handshake.recordNanos(nanos);
+    }
+
+    public static LatencyHistogram histogram(Pair pair) {
+        return pair.histogram;
+    }
+
+    public static synchronized long lastRttMicros() {
+        return lastMicros;
+    }
+
+    public static synchronized long jitterMicros(Pair pair) {
+        return Math.round(pair.jitterMicros);
+    }
+
+    /** Несколько строк для оверлея на экране игры. */
+    public static synchronized String overlayText() {
+        StringBuilder text = new StringBuilder();
+        text.append("RTT ").append(lastMicros >= 0 ? LatencyHistogram.format(lastMicros) : "—")
+                .append("   jitter(SHOT) ").append(LatencyHistogram.format(Math.round(Pair.SHOT.jitterMicros)))
+                .append('\n');
+        for (Pair pair : Pair.values()) {
+            if (pair.histogram.count() == 0) continue;
+            text.append(pair.request).append(": ").append(pair.histogram.summary()).append('\n');
+        }
+        if (handshake.count() > 0) text.append("рукопожатие: ").append(handshake.summary()).append('\n');
+        if (delivery.count() > 0) text.append("до экрана: ").append(delivery.summary()).append('\n');
+        if (flushes > 0) text.append(outboxSummary()).append('\n');
+        if (streamObjectsMax > 0) text.append(streamSummary());
+        return text.toString().strip();
+    }
+
+    /** Сводка и полные распределения в формате .hgrm в один файл. */
+    public static synchronized void dump(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# Сетевая статистика клиента, " + LocalDateTime.now());
+            out.println("# Рукопожатие ~ сетевой RTT; пара минус рукопожатие ~ время сервера;");
+            out.println("# «до экрана» — очередь потока JavaFX на клиенте. Значения в мс.");
+            for (Pair pair : Pair.values()) {
+                out.println();
+                out.println("## " + pair.label + "  " + pair.histogram.summary()
+                        + " jitter=" + LatencyHistogram.format(Math.round(pair.jitterMicros)));
+                pair.histogram.writePercentiles(out);
+            }
+            out.println();
+            out.println("## рукопожатие  " + handshake.summary());
+            handshake.writePercentiles(out);
+            out.println();
+            out.println("## до экрана  " + delivery.summary());
+            delivery.writePercentiles(out);
+            out.println();
+            out.println("## " + outboxSummary());
+            out.println("## " + streamSummary());
+        }
+    }
+}
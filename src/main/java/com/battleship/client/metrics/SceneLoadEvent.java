@@ -0,0 +1,36 @@
+package com.battleship.client.metrics;
+
+import jdk.jfr.*;
+
+/** Смена экрана: загрузка FXML (или ожидание кэша) и установка сцены. */
+@Name("battleship.SceneLoad")
+@Label("Смена экрана")
+@Category({"Battleship", "Интерфейс"})
+public class SceneLoadEvent extends Event {
+
+    @Label("Переход")
+    public String transition;
+
+    @Label("FXML")
+    public String fxml;
+
+    @Label("Из кэша")
+    public boolean cached;
+
+    @Label("Загрузка FXML")
+    @Timespan(Timespan.NANOSECONDS)
+    public long loadTime;
+
+    private final long startNanos = System.nanoTime();
+
+    public SceneLoadEvent(String transition, String fxml) {
+        this.transition = transition;
+        this.fxml = fxml;
+        begin();
+    }
+
+    /** Отмечает конец {@code FXMLLoader.load}; остальное до {@link #commit()} — установка сцены. */
+    public void loaded() {
+        loadTime = System.nanoTime() - startNanos;
+    }
+}
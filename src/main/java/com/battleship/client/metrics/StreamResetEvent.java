@@ -0,0 +1,40 @@
+package com.battleship.client.metrics;
+
+import jdk.jfr.*;
+
+/** Сброс таблицы ссылок ObjectOutputStream: сколько она держала к этому моменту. */
+@Name("battleship.StreamReset")
+@Label("Сброс потока объектов")
+@Category({"Battleship", "Сеть"})
+@StackTrace(false)
+public class StreamResetEvent extends Event {
+
+    @Label("Причина")
+    public String reason;
+
+    @Label("Сообщений с прошлого сброса")
+    public int messages;
+
+    @Label("Объектов в таблице")
+    public int objects;
+
+    @Label("Записано с прошлого сброса")
+    @DataAmount
+    public long bytes;
+
+    @Label("Занятая куча")
+    @DataAmount
+    public long heapUsed;
+
+    public static void emit(String reason, int messages, int objects, long bytes) {
+        StreamResetEvent event = new StreamResetEvent();
+        if (!event.isEnabled()) return;
+        event.reason = reason;
+        event.messages = messages;
+        event.objects = objects;
+        event.bytes = bytes;
+        Runtime runtime = Runtime.getRuntime();
+        event.heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        event.commit();
+    }
+}
@@ -0,0 +1,76 @@
+package com.battleship.client.net;
+
+import com.battleship.client.metrics.MessageEvent;
+import com.battleship.common.Message;
+import com.battleship.common.MessageCodec;
+
+import java.io.*;
+import java.net.Socket;
+
+public class BinaryTransport implements Transport {
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final int version;
+
+    public BinaryTransport(Socket socket, InputStream input, int version) throws IOException {
+        this.socket = socket;
+        this.version = version;
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.in = new DataInputStream(input);
+    }
+
+    @Override
+    public void send(Message msg) throws IOException {
+        write(msg);
+        flush();
+    }
+
+    @Override
+    public void write(Message msg) throws IOException {
+        long start = System.nanoTime();
+        byte[] body = MessageCodec.encode(msg);
+        long encoded = System.nanoTime();
+        out.writeInt(body.length);
+        out.write(body);
+        MessageEvent.sent("binary", msg, 4 + body.length, encoded - start);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public Message receive() throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > MessageCodec.MAX_FRAME) {
+            throw new StreamCorruptedException("Неверная длина кадра: " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        long start = System.nanoTime();
+        Message msg = MessageCodec.decode(body);
+        MessageEvent.received("binary", msg, 4 + length, System.nanoTime() - start);
+        return msg;
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public boolean isBinary() {
+        return true;
+    }
+
+    @Override
+    public int version() {
+        return version;
+    }
+}
@@ -0,0 +1,34 @@
+package com.battleship.client.net;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/** Пул прямых буферов одного размера для кадров NIO-транспорта. */
+public final class BufferPool {
+
+    public static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED = 32;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> FREE = new ConcurrentLinkedQueue<>();
+
+    private BufferPool() {
+    }
+
+    public static ByteBuffer acquire(int capacity) {
+        if (capacity > BUFFER_SIZE) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        ByteBuffer buffer = FREE.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public static void release(ByteBuffer buffer) {
+        if (buffer.capacity() == BUFFER_SIZE && FREE.size() < MAX_POOLED) {
+            FREE.offer(buffer);
+        }
+    }
+}
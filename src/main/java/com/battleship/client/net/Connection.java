@@ -0,0 +1,512 @@
+package com.battleship.client.net;
+
+import com.battleship.client.concurrent.FxBatcher;
+import com.battleship.client.concurrent.Tasks;
+import com.battleship.client.metrics.NetStats;
+import com.battleship.common.Message;
+import com.battleship.common.MessageType;
+import com.battleship.common.StateDelta;
+import com.battleship.common.SyncSnapshot;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Единственный владелец соединения: один поток чтения, один поток записи.
+ * Входящие сообщения передаются в поток JavaFX обработчику активного экрана;
+ * пока экран не подключил обработчик (смена сцены), они копятся и будут
+ * отданы следующему обработчику в исходном порядке.
+ *
+ * <p>Отправлять можно сразу после создания: сообщения ждут в очереди, пока
+ * устанавливается связь. При обрыве соединение переподключается с
+ * экспоненциальной задержкой и продолжает сессию по токену (RESUME).
+ * Отправленные, но ещё без ответа сообщения после переподключения уходят
+ * повторно — доставка «хотя бы один раз».
+ *
+ * <p>Очередь отправки ограничена: при переполнении {@link #send} отказывает,
+ * а не копит без конца за мёртвым сервером. Поток записи выталкивает буфер
+ * транспорта, только когда очередь опустела (или пачка стала большой), так
+ * что всплеск сообщений уходит одним сбросом.
+ */
+public class Connection {
+
+    public enum State { CONNECTING, READY, RECONNECTING, CLOSED }
+
+    private interface Op {
+        void run(Transport transport) throws IOException;
+    }
+
+    // done — кому сообщить о доставке в транспорт, может быть null
+    private record Send(Message msg, CompletableFuture<Void> done) implements Op {
+        @Override
+        public void run(Transport transport) throws IOException {
+            NetStats.sent(msg, System.nanoTime());
+            transport.write(msg);
+        }
+    }
+
+    private static final Message PING = new Message(MessageType.PING);
+
+    private static final Op STOP = transport -> { };
+    // ставится в голову очереди, чтобы запись старого подключения вышла, не трогая остальное
+    private static final Op DETACH = transport -> { };
+
+    private static final long BACKOFF_BASE_MS = 250;
+    private static final long BACKOFF_MAX_MS = 8000;
+    private static final int ATTEMPTS = Integer.getInteger("battleship.reconnectAttempts", 8);
+    private static final int CAPACITY = Integer.getInteger("battleship.outboxCapacity", 256);
+    private static final int MAX_BATCH = 64;
+
+    private final Callable<Transport> connector;
+    private final Executor callbacks;
+    private final LinkedBlockingDeque<Op> outbox = new LinkedBlockingDeque<>(CAPACITY);
+    // отдано транспорту, ответа ещё не было; первые onWire могут быть подтверждены
+    // ответом, остальные возвращены после обрыва. Доступ — под монитором unacked,
+    // как и к resend
+    private final Deque<Send> unacked = new ArrayDeque<>();
+    private int onWire;
+    // неподтверждённое с прошлого подключения: уходит раньше очереди и не занимает её места
+    private final Deque<Send> resend = new ArrayDeque<>();
+    private Transport first;
+    private volatile Transport transport;
+    private Future<?> supervisor;
+    private volatile Thread supervisorThread;
+
+    private volatile State state = State.CONNECTING;
+    private volatile boolean closed;
+    private volatile String token;
+    private volatile boolean loggedIn;
+    // сбрасывает поток записи, растит поток чтения: только атомарно, иначе сброс теряется
+    private final AtomicInteger lastSeq = new AtomicInteger();
+
+    // дальше — только в потоке обратных вызовов
+    private final Queue<Message> pending = new ArrayDeque<>();
+    private MessageHandler handler;
+    private boolean lost;
+
+    /** Готовое соединение без переподключения (офлайн, тесты). */
+    public Connection(Transport transport) {
+        this(null, transport, FxBatcher.shared());
+    }
+
+    /** Соединение, которое само подключается через {@code connector} и переподключается при обрыве. */
+    public Connection(Callable<Transport> connector) {
+        this(connector, null, FxBatcher.shared());
+    }
+
+    /** То же, но обработчики вызываются через {@code callbacks} — например, без JavaFX. */
+    public Connection(Callable<Transport> connector, Executor callbacks) {
+        this(connector, null, callbacks);
+    }
+
+    private Connection(Callable<Transport> connector, Transport first, Executor callbacks) {
+        this.connector = connector;
+        this.first = first;
+        this.callbacks = callbacks;
+    }
+
+    public void start() {
+        supervisor = Tasks.submit(this::supervise);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /** Версия протокола текущего подключения; 0 — старый сервер или подключения ещё не было. */
+    public int version() {
+        Transport current = transport;
+        return current != null ? current.version() : 0;
+    }
+
+    /** Делает обработчик активным и отдаёт ему накопленные сообщения. Только из потока обратных вызовов. */
+    public void attach(MessageHandler newHandler) {
+        handler = newHandler;
+        while (handler == newHandler && !pending.isEmpty()) {
+            newHandler.handle(pending.poll());
+        }
+        if (handler != newHandler) return;
+        if (lost) {
+            newHandler.disconnected();
+        } else if (state == State.RECONNECTING) {
+            newHandler.connectionState(state);
+        }
+    }
+
+    /** Снимает обработчик, если он всё ещё активен. Только из потока обратных вызовов. */
+    public void detach(MessageHandler oldHandler) {
+        if (handler == oldHandler) {
+            handler = null;
+        }
+    }
+
+    public boolean send(Message msg) {
+        return enqueue(new Send(msg, null));
+    }
+
+    /**
+     * То же, но с итогом: будущее завершается в потоке обратных вызовов, когда
+     * сообщение ушло в транспорт, или с ошибкой, если очередь полна или
+     * соединение закрылось раньше.
+     */
+    public CompletableFuture<Void> sendAsync(Message msg) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!enqueue(new Send(msg, done))) {
+            fail(done);
+        }
+        return done;
+    }
+
+    /** Сброс состояния потока строго между уже поставленными и следующими сообщениями. */
+    public boolean reset() {
+        return enqueue(Transport::reset);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void close() {
+        if (closed) return;
+        closed = true;
+        state = State.CLOSED;
+        // в полную очередь STOP не встанет, но тогда запись и не ждёт: транспорт
+        // закрыт ниже, она упадёт на первом же сообщении
+        outbox.offer(STOP);
+        Transport current = transport;
+        if (current != null) current.close();
+        if (supervisor != null && Thread.currentThread() != supervisorThread) {
+            try {
+                supervisor.get(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException | CancellationException e) {
+                supervisor.cancel(true);
+            }
+        }
+        failPending();
+    }
+
+    private boolean enqueue(Op op) {
+        if (closed) return false;
+        if (!outbox.offerLast(op)) {
+            NetStats.outboxRejected();
+            return false;
+        }
+        NetStats.outbox(outbox.size());
+        return true;
+    }
+
+    /**
+     * Подключается, читает до обрыва и переподключается. Чтение идёт в этом
+     * же потоке, запись — в отдельной задаче на время одного подключения.
+     */
+    private void supervise() {
+        supervisorThread = Thread.currentThread();
+        int attempt = 0;
+        while (!closed) {
+            Transport next = first;
+            first = null;
+            try {
+                if (next == null) {
+                    if (connector == null) break;
+                    next = connector.call();
+                }
+                if (state == State.RECONNECTING) resume(next);
+            } catch (Exception e) {
+                if (next != null) next.close();
+                if (e instanceof ResumeRejected || ++attempt > ATTEMPTS) break;
+                if (!pause(attempt)) break;
+                continue;
+            }
+            if (closed) {
+                next.close();
+                return;
+            }
+            attempt = 0;
+            transport = next;
+            changeState(State.READY);
+            serve(next);
+            if (closed) return;
+            // без токена продолжить сессию после входа нельзя — сервер нас не узнает
+            if (connector == null || loggedIn && token == null) break;
+            changeState(State.RECONNECTING);
+        }
+        if (!closed) connectionLost();
+    }
+
+    private void serve(Transport current) {
+        CountDownLatch writerDone = new CountDownLatch(1);
+        Tasks.submit(() -> writeLoop(current, writerDone));
+        readLoop(current);
+        current.close();
+        // старая запись не должна забрать из очереди то, что предназначено новому подключению;
+        // если очередь полна, запись не ждёт и сама упадёт на закрытом транспорте
+        outbox.offerFirst(DETACH);
+        try {
+            writerDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        outbox.remove(DETACH);
+    }
+
+    /** Продолжение сессии на новом транспорте до запуска чтения и записи. */
+    private void resume(Transport next) throws IOException {
+        if (token == null) {
+            requeueUnacked(false);
+            return;
+        }
+        int seenSeq = lastSeq.get();
+        next.send(new Message(MessageType.RESUME, new String[]{token, Integer.toString(seenSeq)}));
+        Message reply = next.receive();
+        if (reply.getType() != MessageType.RESUME_OK) {
+            token = null;
+            throw new ResumeRejected();
+        }
+        // сервер ушёл дальше, чем мы видели, — неподтверждённый выстрел до него дошёл,
+        // результат придёт повтором дельт, а повторный выстрел был бы ошибкой
+        int serverSeq = ((int[]) reply.getPayload())[0];
+        requeueUnacked(serverSeq > seenSeq);
+    }
+
+    private void requeueUnacked(boolean shotDelivered) {
+        synchronized (unacked) {
+            if (shotDelivered) {
+                int lastShot = -1, i = 0;
+                for (Send send : unacked) {
+                    if (send.msg().getType() == MessageType.SHOT) lastShot = i;
+                    i++;
+                }
+                for (; lastShot >= 0; lastShot--) delivered(unacked.pollFirst());
+            }
+            for (Send send; (send = unacked.pollLast()) != null; ) {
+                resend.offerFirst(send);
+            }
+            onWire = 0;
+        }
+    }
+
+    private boolean pause(int attempt) {
+        long cap = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(attempt - 1, 16));
+        // полный разброс: переподключающиеся клиенты не приходят к серверу разом
+        long delay = ThreadLocalRandom.current().nextLong(cap / 2, cap + 1);
+        try {
+            Thread.sleep(delay);
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void readLoop(Transport current) {
+        try {
+            while (!closed) {
+                Message msg = current.receive();
+                long receivedAt = System.nanoTime();
+                NetStats.received(msg, receivedAt);
+                acknowledge(msg);
+                if (!track(msg)) continue;
+                callbacks.execute(() -> {
+                    NetStats.delivered(receivedAt, System.nanoTime());
+                    dispatch(msg);
+                });
+            }
+        } catch (IOException e) {
+            // обрыв: решение о переподключении принимает supervise
+        }
+    }
+
+    /**
+     * До входа сервер только отвечает, по одному ответу на запрос: регистрация
+     * и вход, ушедшие вместе, подтверждаются по очереди. Дальше бывают и
+     * сообщения без запроса, и любое из них подтверждает всё отправленное.
+     */
+    private void acknowledge(Message msg) {
+        if (msg.getType() == MessageType.SESSION_TOKEN) return;
+        synchronized (unacked) {
+            if (onWire == 0) return;
+            // ответ на PING подтверждает всё, что ушло до него
+            if (token == null && msg.getType() != MessageType.PING) {
+                unacked.pollFirst();
+                onWire--;
+            } else {
+                for (; onWire > 0; onWire--) unacked.pollFirst();
+            }
+        }
+    }
+
+    /** Запоминает то, что нужно для RESUME; false — сообщение служебное и экрану не нужно. */
+    private boolean track(Message msg) {
+        switch (msg.getType()) {
+            case SESSION_TOKEN -> {
+                token = (String) msg.getPayload();
+                return false;
+            }
+            case PING -> {
+                return false;
+            }
+            case LOGIN_SUCCESS -> loggedIn = true;
+            case STATE_DELTA -> seen(((StateDelta) msg.getPayload()).seq);
+            case RESYNC -> seen(((SyncSnapshot) msg.getPayload()).seq);
+            default -> { }
+        }
+        return true;
+    }
+
+    private void seen(int seq) {
+        lastSeq.updateAndGet(last -> Math.max(last, seq));
+    }
+
+    private void writeLoop(Transport current, CountDownLatch done) {
+        // записано в транспорт, но ещё не вытолкнуто в сокет
+        List<Send> batch = new ArrayList<>();
+        long keepAlive = current.keepAliveMillis();
+        try {
+            while (true) {
+                Op op = nextResend();
+                if (op == null) {
+                    op = keepAlive > 0 ? outbox.poll(keepAlive, TimeUnit.MILLISECONDS) : outbox.take();
+                }
+                if (op == null) {
+                    // простой: ответ на PING не даст сработать таймауту чтения
+                    current.send(PING);
+                    continue;
+                }
+                if (op == DETACH) return;
+                if (op == STOP) {
+                    flush(current, batch);
+                    return;
+                }
+                NetStats.outbox(outbox.size());
+                if (op instanceof Send send) {
+                    // новая или продолженная партия — сервер начинает номера дельт заново
+                    MessageType type = send.msg().getType();
+                    if (type == MessageType.PLACE_SHIPS || type == MessageType.CONTINUE_GAME) lastSeq.set(0);
+                    // в полёте ещё до записи: быстрый ответ должен его застать
+                    synchronized (unacked) {
+                        unacked.add(send);
+                        onWire++;
+                    }
+                    batch.add(send);
+                }
+                op.run(current);
+                if (outbox.isEmpty() || batch.size() >= MAX_BATCH) flush(current, batch);
+            }
+        } catch (IOException e) {
+            // закрываем транспорт, чтобы чтение тоже заметило обрыв
+            current.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            restore(batch);
+            done.countDown();
+        }
+    }
+
+    private Send nextResend() {
+        synchronized (unacked) {
+            return resend.pollFirst();
+        }
+    }
+
+    private void flush(Transport current, List<Send> batch) throws IOException {
+        current.flush();
+        if (batch.isEmpty()) return;
+        NetStats.flushed(batch.size());
+        for (Send send : batch) delivered(send);
+        batch.clear();
+    }
+
+    /**
+     * Подключение кончилось. Невытолкнутое могло не дойти, даже если его уже
+     * «подтвердило» сообщение, пришедшее между записью и сбросом, — оно уйдёт
+     * повторно вместе с неподтверждённым. Подтверждения снимают голову очереди,
+     * так что от пачки в unacked остался хвост, а вернуть нужно её начало.
+     * Ответы умирающего подключения больше ничего не подтверждают.
+     */
+    private void restore(List<Send> batch) {
+        synchronized (unacked) {
+            int kept = 0;
+            for (Send send : unacked) {
+                for (Send written : batch) {
+                    if (send == written) {
+                        kept++;
+                        break;
+                    }
+                }
+            }
+            for (int i = batch.size() - kept - 1; i >= 0; i--) unacked.offerFirst(batch.get(i));
+            onWire = 0;
+        }
+    }
+
+    private void delivered(Send send) {
+        if (send.done() != null && !send.done().isDone()) {
+            callbacks.execute(() -> send.done().complete(null));
+        }
+    }
+
+    private void fail(CompletableFuture<Void> done) {
+        callbacks.execute(() -> done.completeExceptionally(new IOException("Соединение закрыто")));
+    }
+
+    /** Всё, что так и не ушло, завершается ошибкой — никто не ждёт вечно. */
+    private void failPending() {
+        for (Op op; (op = outbox.poll()) != null; ) {
+            if (op instanceof Send send && send.done() != null) fail(send.done());
+        }
+        synchronized (unacked) {
+            for (Send send : unacked) {
+                if (send.done() != null) fail(send.done());
+            }
+            for (Send send : resend) {
+                if (send.done() != null) fail(send.done());
+            }
+        }
+    }
+
+    private void changeState(State newState) {
+        if (state == newState) return;
+        state = newState;
+        callbacks.execute(() -> {
+            if (handler != null) handler.connectionState(newState);
+        });
+    }
+
+    private void dispatch(Message msg) {
+        if (handler != null) {
+            handler.handle(msg);
+        } else {
+            pending.add(msg);
+        }
+    }
+
+    private void connectionLost() {
+        closed = true;
+        state = State.CLOSED;
+        Transport current = transport;
+        if (current != null) current.close();
+        failPending();
+        callbacks.execute(() -> {
+            if (lost) return;
+            lost = true;
+            if (handler != null) {
+                handler.disconnected();
+            }
+        });
+    }
+
+    private static final class ResumeRejected extends IOException {
+        ResumeRejected() {
+            super("Сервер не узнал сессию");
+        }
+    }
+}
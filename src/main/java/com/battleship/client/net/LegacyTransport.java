@@ -0,0 +1,179 @@
+package com.battleship.client.net;
+
+import com.battleship.client.metrics.MessageEvent;
+import com.battleship.client.metrics.NetStats;
+import com.battleship.client.metrics.StreamResetEvent;
+import com.battleship.common.Message;
+
+import java.io.*;
+import java.net.Socket;
+
+/**
+ * Старый сервер: Java-сериализация. ObjectOutputStream помнит каждый
+ * записанный объект ради обратных ссылок, и без сброса за долгую сессию
+ * таблица держит все партии, корабли и массивы. Поэтому поток сбрасывается
+ * между сообщениями — раз в {@code battleship.resetMessages} сообщений или
+ * {@code battleship.resetBytes} байт; маркер сброса очищает и таблицу
+ * читающей стороны.
+ */
+public class LegacyTransport implements Transport {
+
+    private static final int RESET_MESSAGES = Integer.getInteger("battleship.resetMessages", 64);
+    private static final long RESET_BYTES = Long.getLong("battleship.resetBytes", 256 * 1024);
+
+    private final Socket socket;
+    private final BlockOutputStream out;
+    private final ObjectInputStream in;
+    private final CountingOutputStream written;
+    private final CountingInputStream read;
+    // с последнего сброса — только в потоке записи
+    private int messagesSinceReset;
+    private long bytesSinceReset;
+
+    public LegacyTransport(Socket socket, InputStream input) throws IOException {
+        this.socket = socket;
+        this.written = new CountingOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.read = new CountingInputStream(input);
+        this.out = new BlockOutputStream(written);
+        this.out.flush();
+        this.in = new ObjectInputStream(read);
+    }
+
+    @Override
+    public void send(Message msg) throws IOException {
+        write(msg);
+        flush();
+    }
+
+    @Override
+    public void write(Message msg) throws IOException {
+        long before = written.count;
+        long start = System.nanoTime();
+        out.writeObject(msg);
+        // блочный буфер ObjectOutputStream сливаем в свой, чтобы счётчик видел байты сообщения
+        out.drainBlock();
+        int bytes = (int) (written.count - before);
+        MessageEvent.sent("legacy", msg, bytes, System.nanoTime() - start);
+
+        messagesSinceReset++;
+        bytesSinceReset += bytes;
+        if (messagesSinceReset >= RESET_MESSAGES) {
+            resetStream("messages");
+        } else if (bytesSinceReset >= RESET_BYTES) {
+            resetStream("bytes");
+        } else {
+            NetStats.streamRetained(out.objects, bytesSinceReset);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public Message receive() throws IOException {
+        try {
+            // у Java-сериализации нет кадров, поэтому сюда входит и ожидание самих байтов
+            long before = read.count;
+            long start = System.nanoTime();
+            Message msg = (Message) in.readObject();
+            MessageEvent.received("legacy", msg, (int) (read.count - before), System.nanoTime() - start);
+            return msg;
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new StreamCorruptedException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        resetStream("explicit");
+        out.flush();
+    }
+
+    // только между сообщениями: сброс посреди графа объектов поток не допускает
+    private void resetStream(String reason) throws IOException {
+        StreamResetEvent.emit(reason, messagesSinceReset, out.objects, bytesSinceReset);
+        NetStats.streamReset(out.objects, bytesSinceReset);
+        out.reset();
+        out.objects = 0;
+        messagesSinceReset = 0;
+        bytesSinceReset = 0;
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public boolean isBinary() {
+        return false;
+    }
+
+    private static final class BlockOutputStream extends ObjectOutputStream {
+        // объекты, получившие ссылку в таблице с последнего сброса
+        int objects;
+
+        BlockOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        // зовётся только для объектов, которых ещё нет в таблице
+        @Override
+        protected Object replaceObject(Object obj) {
+            objects++;
+            return obj;
+        }
+
+        void drainBlock() throws IOException {
+            drain();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.battleship.client.net;
+
+import com.battleship.common.Message;
+
+/** Обработчик сообщений активного экрана. Вызывается в потоке JavaFX. */
+public interface MessageHandler {
+
+    void handle(Message msg);
+
+    default void disconnected() {
+    }
+
+    /** Смена состояния переподключающегося соединения; окончательный обрыв — {@link #disconnected()}. */
+    default void connectionState(Connection.State state) {
+    }
+}
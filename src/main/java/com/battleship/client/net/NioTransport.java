@@ -0,0 +1,277 @@
+package com.battleship.client.net;
+
+import com.battleship.client.metrics.MessageEvent;
+import com.battleship.common.Message;
+import com.battleship.common.MessageCodec;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Двоичный протокол поверх неблокирующего SocketChannel. Чтение и запись
+ * ждут готовности канала через свои селекторы с таймаутом, поэтому мёртвый
+ * сервер приводит к SocketTimeoutException, а не к вечной блокировке.
+ * Таймаут чтения действует только с сервером версии 6+: он отвечает на PING,
+ * и простой не спутать с мёртвым сервером. Со старым сервером простой
+ * бесконечен, обрыв замечает TCP keepalive.
+ */
+public class NioTransport implements Transport {
+
+    private final SocketChannel channel;
+    private final Selector readSelector;
+    private final Selector writeSelector;
+    private final ByteBuffer readBuffer;
+    // кадры, записанные через write и ещё не ушедшие в канал; кодек пишет прямо в него
+    private final ByteBuffer writeBuffer;
+    private final DataOutputStream frameOut;
+    private long readTimeout;
+    private final long writeTimeout;
+    private int version;
+
+    private NioTransport(SocketChannel channel, long readTimeout, long writeTimeout) throws IOException {
+        this.channel = channel;
+        this.readTimeout = readTimeout;
+        this.writeTimeout = writeTimeout;
+        this.readSelector = Selector.open();
+        this.writeSelector = Selector.open();
+        this.readBuffer = ByteBuffer.allocateDirect(BufferPool.BUFFER_SIZE);
+        this.readBuffer.flip();
+        this.writeBuffer = ByteBuffer.allocateDirect(BufferPool.BUFFER_SIZE);
+        this.frameOut = new DataOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                writeBuffer.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writeBuffer.put(b, off, len);
+            }
+        });
+        channel.register(readSelector, SelectionKey.OP_READ);
+        channel.register(writeSelector, SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Подключается и проводит рукопожатие. Возвращает null, если сервер
+     * не ответил двоичным приветствием — тогда нужен старый транспорт.
+     */
+    public static NioTransport connect(String host, int port, long connectTimeout, long helloTimeout,
+                                       long readTimeout, long writeTimeout) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        NioTransport transport = null;
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            if (!channel.connect(new InetSocketAddress(host, port))) {
+                try (Selector selector = Selector.open()) {
+                    channel.register(selector, SelectionKey.OP_CONNECT);
+                    long deadline = System.currentTimeMillis() + connectTimeout;
+                    while (!channel.finishConnect()) {
+                        long left = deadline - System.currentTimeMillis();
+                        if (left <= 0) throw new SocketTimeoutException("Таймаут подключения");
+                        selector.select(left);
+                    }
+                }
+            }
+
+            transport = new NioTransport(channel, readTimeout, writeTimeout);
+            if (!transport.handshake(helloTimeout)) {
+                transport.close();
+                return null;
+            }
+            return transport;
+        } catch (IOException e) {
+            if (transport != null) transport.close();
+            else channel.close();
+            throw e;
+        }
+    }
+
+    private boolean handshake(long helloTimeout) throws IOException {
+        try {
+            if (!fill(5, helloTimeout) || readBuffer.getInt() != MessageCodec.MAGIC) {
+                return false;
+            }
+        } catch (SocketTimeoutException e) {
+            // молчит — старый сервер ждёт заголовок потока объектов от клиента
+            return false;
+        }
+        version = Math.min(readBuffer.get() & 0xFF, MessageCodec.VERSION);
+        if (version < 6) readTimeout = 0;
+
+        ByteBuffer hello = BufferPool.acquire(5);
+        try {
+            hello.putInt(MessageCodec.MAGIC).put((byte) version).flip();
+            writeFully(hello);
+        } finally {
+            BufferPool.release(hello);
+        }
+        return true;
+    }
+
+    @Override
+    public void send(Message msg) throws IOException {
+        write(msg);
+        flush();
+    }
+
+    @Override
+    public void write(Message msg) throws IOException {
+        long start = System.nanoTime();
+        int length = encodeInPlace(msg);
+        if (length < 0) {
+            flush();
+            length = encodeInPlace(msg);
+        }
+        if (length < 0) {
+            // кадр больше буфера — отдельно и сразу
+            byte[] body = MessageCodec.encode(msg);
+            length = body.length;
+            ByteBuffer frame = BufferPool.acquire(4 + length);
+            try {
+                frame.putInt(length).put(body).flip();
+                writeFully(frame);
+            } finally {
+                BufferPool.release(frame);
+            }
+        }
+        MessageEvent.sent("nio", msg, 4 + length, System.nanoTime() - start);
+    }
+
+    /** Кадр прямо в буфер записи; длина тела или -1, если не поместился (буфер не тронут). */
+    private int encodeInPlace(Message msg) throws IOException {
+        int start = writeBuffer.position();
+        if (writeBuffer.remaining() < 4) return -1;
+        writeBuffer.position(start + 4);
+        try {
+            MessageCodec.encode(msg, frameOut);
+        } catch (BufferOverflowException e) {
+            writeBuffer.position(start);
+            return -1;
+        } catch (IOException | RuntimeException e) {
+            writeBuffer.position(start);
+            throw e;
+        }
+        int length = writeBuffer.position() - start - 4;
+        writeBuffer.putInt(start, length);
+        return length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writeBuffer.position() == 0) return;
+        writeBuffer.flip();
+        try {
+            writeFully(writeBuffer);
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    @Override
+    public Message receive() throws IOException {
+        fill(4, readTimeout);
+        int length = readBuffer.getInt(readBuffer.position());
+        if (length <= 0 || length > MessageCodec.MAX_FRAME) {
+            throw new StreamCorruptedException("Неверная длина кадра: " + length);
+        }
+
+        byte[] body = new byte[length];
+        readBuffer.position(readBuffer.position() + 4);
+        int offset = 0;
+        while (offset < length) {
+            if (!readBuffer.hasRemaining()) fill(1, readTimeout);
+            int n = Math.min(readBuffer.remaining(), length - offset);
+            readBuffer.get(body, offset, n);
+            offset += n;
+        }
+        long start = System.nanoTime();
+        Message msg = MessageCodec.decode(body);
+        MessageEvent.received("nio", msg, 4 + length, System.nanoTime() - start);
+        return msg;
+    }
+
+    /** Дочитывает в буфер, пока в нём не окажется хотя бы {@code need} байт. */
+    private boolean fill(int need, long timeout) throws IOException {
+        long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+        while (readBuffer.remaining() < need) {
+            readBuffer.compact();
+            int n = channel.read(readBuffer);
+            readBuffer.flip();
+            if (n < 0) throw new EOFException("Сервер закрыл соединение");
+            if (n > 0) continue;
+
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) throw new SocketTimeoutException("Таймаут чтения");
+            await(readSelector, timeout > 0 ? left : 0);
+        }
+        return true;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        long deadline = System.currentTimeMillis() + writeTimeout;
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) > 0) continue;
+
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) throw new SocketTimeoutException("Таймаут записи");
+            await(writeSelector, left);
+        }
+    }
+
+    private void await(Selector selector, long timeout) throws IOException {
+        try {
+            if (channel.isOpen()) {
+                selector.select(timeout);
+                selector.selectedKeys().clear();
+            }
+        } catch (ClosedSelectorException e) {
+            // селектор закрыт из close() — ниже это станет EOFException
+        }
+        if (!channel.isOpen()) throw new EOFException("Соединение закрыто");
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        readSelector.wakeup();
+        writeSelector.wakeup();
+        try {
+            readSelector.close();
+            writeSelector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public boolean isBinary() {
+        return true;
+    }
+
+    @Override
+    public int version() {
+        return version;
+    }
+
+    @Override
+    public long keepAliveMillis() {
+        return readTimeout / 3;
+    }
+}
@@ -0,0 +1,78 @@
+package com.battleship.client.net;
+
+import com.battleship.client.local.ServerSession;
+import com.battleship.client.save.GameStore;
+import com.battleship.common.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Игра против компьютера без сети: сообщения клиента обрабатывает та же
+ * {@link ServerSession}, что и встроенный сервер, тут же, в потоке записи,
+ * а ответы сразу кладутся во входящую очередь. Партия сохраняется после
+ * каждого хода и продолжается по CONTINUE_GAME.
+ */
+public class OfflineTransport implements Transport {
+
+    private static final Message CLOSED = new Message(MessageType.ERROR);
+
+    private final BlockingQueue<Message> inbox = new LinkedBlockingQueue<>();
+    private final ServerSession session;
+    private volatile boolean closed;
+
+    public OfflineTransport(String player) {
+        this(player, GameStore.sharedOrNull());
+    }
+
+    /** {@code store} — куда сохранять партии, null — не сохранять. */
+    public OfflineTransport(String player, GameStore store) {
+        this.session = ServerSession.local(player, store);
+    }
+
+    @Override
+    public synchronized void send(Message msg) throws IOException {
+        if (closed) throw new EOFException("Соединение закрыто");
+        for (Message reply : session.handle(copy(msg))) {
+            inbox.add(copy(reply));
+        }
+    }
+
+    @Override
+    public Message receive() throws IOException {
+        try {
+            Message msg = inbox.take();
+            if (msg == CLOSED) throw new EOFException("Соединение закрыто");
+            return msg;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EOFException("Прервано");
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        session.close();
+        inbox.add(CLOSED);
+    }
+
+    // сообщения проходят через двоичный кодек текущей версии (см. copy), как по сети
+    @Override
+    public boolean isBinary() {
+        return true;
+    }
+
+    @Override
+    public int version() {
+        return MessageCodec.VERSION;
+    }
+
+    // Копия через двоичный кодек, как по сети: сессия не должна делить объекты с экраном
+    private static Message copy(Message msg) throws IOException {
+        return MessageCodec.decode(MessageCodec.encode(msg));
+    }
+}
@@ -0,0 +1,40 @@
+package com.battleship.client.net;
+
+import com.battleship.common.Message;
+
+import java.io.IOException;
+
+public interface Transport {
+
+    /** Отправляет сообщение сразу: запись и {@link #flush()}. */
+    void send(Message msg) throws IOException;
+
+    /** Записывает сообщение в буфер; до {@link #flush()} оно может не уйти в сеть. */
+    default void write(Message msg) throws IOException {
+        send(msg);
+    }
+
+    default void flush() throws IOException {
+    }
+
+    Message receive() throws IOException;
+
+    /** Сбрасывает накопленное состояние потока на границе сообщений. */
+    default void reset() throws IOException {
+    }
+
+    void close();
+
+    /** Сообщения идут через {@link com.battleship.common.MessageCodec}, а не Java-сериализацию. */
+    boolean isBinary();
+
+    /** Версия двоичного протокола, о которой договорились при подключении; 0 — Java-сериализация. */
+    default int version() {
+        return 0;
+    }
+
+    /** Через сколько миллисекунд простоя слать PING, чтобы не сработал таймаут чтения; 0 — не слать. */
+    default long keepAliveMillis() {
+        return 0;
+    }
+}
@@ -0,0 +1,128 @@
+package com.battleship.client.net;
+
+import com.battleship.client.local.LocalServer;
+import com.battleship.client.metrics.NetStats;
+import com.battleship.common.MessageCodec;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Подключение с согласованием протокола. Новый сервер первым присылает
+ * MAGIC и свою версию, клиент отвечает выбранной версией. Старый сервер
+ * сразу пишет заголовок ObjectOutputStream (или молчит) — тогда остаёмся
+ * на Java-сериализации.
+ *
+ * <p>По умолчанию сначала пробуется неблокирующий {@link NioTransport};
+ * если сервер не говорит двоичным протоколом, подключение повторяется
+ * обычным сокетом. Такой адрес запоминается: следующие подключения к нему
+ * (переподключения в том числе) сразу идут старым протоколом, без ожидания
+ * приветствия и без лишней сессии на сервере. Адрес и режим задаются свойствами
+ * {@code battleship.host}, {@code battleship.port}, {@code battleship.transport}
+ * ({@code nio} или {@code blocking}). При {@code battleship.server=embedded}
+ * клиент поднимает {@link LocalServer} в своём процессе и подключается к нему.
+ */
+public final class Transports {
+
+    public static final String HOST = System.getProperty("battleship.host", "localhost");
+    public static final int PORT = Integer.getInteger("battleship.port", 8888);
+    public static final boolean USE_NIO = !"blocking".equals(System.getProperty("battleship.transport"));
+    public static final boolean EMBEDDED = "embedded".equals(System.getProperty("battleship.server"));
+
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int HELLO_TIMEOUT = 1000;
+    // при простое клиент шлёт PING втрое чаще, так что срабатывает только на мёртвом сервере
+    private static final long READ_TIMEOUT = Long.getLong("battleship.readTimeoutMs", 60_000);
+    private static final long WRITE_TIMEOUT = 10_000;
+
+    // host:port серверов без двоичного протокола
+    private static final Set<String> LEGACY = ConcurrentHashMap.newKeySet();
+
+    private Transports() {
+    }
+
+    public static Transport connect() throws IOException {
+        if (EMBEDDED) {
+            return connect("127.0.0.1", LocalServer.shared().getPort());
+        }
+        return connect(HOST, PORT);
+    }
+
+    /**
+     * В базу рукопожатия идёт только удавшаяся попытка: ожидание приветствия
+     * от старого сервера перед повтором обычным сокетом — это не сеть.
+     */
+    public static Transport connect(String host, int port) throws IOException {
+        String address = host + ":" + port;
+        long start = System.nanoTime();
+        if (USE_NIO && !LEGACY.contains(address)) {
+            Transport nio = NioTransport.connect(host, port, CONNECT_TIMEOUT, HELLO_TIMEOUT,
+                    READ_TIMEOUT, WRITE_TIMEOUT);
+            if (nio != null) {
+                NetStats.handshake(System.nanoTime() - start);
+                return nio;
+            }
+            LEGACY.add(address);
+            start = System.nanoTime();
+        }
+        Transport transport = connectBlocking(host, port);
+        NetStats.handshake(System.nanoTime() - start);
+        return transport;
+    }
+
+    public static Transport connectBlocking(String host, int port) throws IOException {
+        String address = host + ":" + port;
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            Transport transport = handshake(socket, LEGACY.contains(address));
+            if (transport.isBinary()) LEGACY.remove(address);
+            else LEGACY.add(address);
+            return transport;
+        } catch (IOException e) {
+            // адрес запомнен старым ошибочно (сервер не успел поздороваться) — вместо
+            // заголовка потока объектов пришло двоичное приветствие
+            if (e instanceof StreamCorruptedException) LEGACY.remove(address);
+            socket.close();
+            throw e;
+        }
+    }
+
+    /** {@code legacy} — сервер уже известен как старый: приветствия не ждём. */
+    static Transport handshake(Socket socket, boolean legacy) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(socket.getInputStream());
+        int version = legacy ? 0 : readServerVersion(socket, input);
+
+        if (version > 0) {
+            version = Math.min(version, MessageCodec.VERSION);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(MessageCodec.MAGIC);
+            out.writeByte(version);
+            out.flush();
+            return new BinaryTransport(socket, input, version);
+        }
+        return new LegacyTransport(socket, input);
+    }
+
+    private static int readServerVersion(Socket socket, BufferedInputStream input) throws IOException {
+        input.mark(8);
+        socket.setSoTimeout(HELLO_TIMEOUT);
+        try {
+            DataInputStream in = new DataInputStream(input);
+            if (in.readInt() == MessageCodec.MAGIC) {
+                return in.readUnsignedByte();
+            }
+        } catch (SocketTimeoutException ignored) {
+        } finally {
+            socket.setSoTimeout(0);
+        }
+        input.reset();
+        return 0;
+    }
+}
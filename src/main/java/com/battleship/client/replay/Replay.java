@@ -0,0 +1,129 @@
+package com.battleship.client.replay;
+
+import com.battleship.common.Board;
+import com.battleship.common.GameState;
+import com.battleship.common.GameSync;
+import com.battleship.common.SyncSnapshot;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Загруженный повтор. Выстрелы и контрольные точки только читаются из файла,
+ * партия при загрузке не проигрывается; {@link #seek(int)} берёт ближайшую
+ * точку не дальше нужного хода и доигрывает не больше
+ * {@link ReplayWriter#CHECKPOINT_EVERY} выстрелов.
+ */
+public class Replay {
+
+    public final String player;
+    public final String difficulty;
+    public final long startedAt;
+    /** Итог партии; null — запись оборвана или партия брошена. */
+    public final GameState result;
+
+    private final Board ships;
+    private final int checkpointEvery;
+    private final short[] events;
+    private final List<Board[]> checkpoints;
+
+    private Replay(String player, String difficulty, long startedAt, GameState result, Board ships,
+                   int checkpointEvery, short[] events, List<Board[]> checkpoints) {
+        this.player = player;
+        this.difficulty = difficulty;
+        this.startedAt = startedAt;
+        this.result = result;
+        this.ships = ships;
+        this.checkpointEvery = checkpointEvery;
+        this.events = events;
+        this.checkpoints = checkpoints;
+    }
+
+    public static Replay load(Path path) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)));
+        if (in.readInt() != ReplayWriter.MAGIC) throw new StreamCorruptedException("Не файл повтора: " + path);
+        int every = in.readUnsignedByte();
+        long startedAt = in.readLong();
+        String player = in.readUTF();
+        String difficulty = in.readUTF();
+        Board ships = readBoard(in);
+
+        List<Board[]> checkpoints = new ArrayList<>();
+        checkpoints.add(readBoards(in));
+        short[] events = new short[64];
+        int count = 0;
+        GameState result = null;
+        try {
+            while (true) {
+                int word = in.readUnsignedShort();
+                if (word == ReplayWriter.CHECKPOINT) {
+                    checkpoints.add(readBoards(in));
+                } else if ((word & ReplayWriter.END) == ReplayWriter.END) {
+                    int state = word & ~ReplayWriter.END;
+                    if (state > GameState.values().length) {
+                        throw new StreamCorruptedException("Неизвестный итог партии: " + state);
+                    }
+                    result = state > 0 ? GameState.values()[state - 1] : null;
+                    break;
+                } else {
+                    if (count == events.length) events = Arrays.copyOf(events, count * 2);
+                    events[count++] = (short) word;
+                }
+            }
+        } catch (EOFException e) {
+            // запись оборвана — показываем, что успело записаться
+        }
+        // точка, записанная не полностью, отброшена, а выстрелы за ней остаются
+        while ((checkpoints.size() - 1) * every > count) checkpoints.remove(checkpoints.size() - 1);
+        return new Replay(player, difficulty, startedAt, result, ships, every,
+                Arrays.copyOf(events, count), checkpoints);
+    }
+
+    public int moves() {
+        return events.length;
+    }
+
+    public boolean mine(int move) {
+        return (events[move] & 1 << 8) == 0;
+    }
+
+    public boolean hit(int move) {
+        return (events[move] & 1 << 7) != 0;
+    }
+
+    public int row(int move) {
+        return (events[move] & 0x7F) / Board.SIZE;
+    }
+
+    public int col(int move) {
+        return (events[move] & 0x7F) % Board.SIZE;
+    }
+
+    /** Доски после первых {@code move} выстрелов. */
+    public GameSync seek(int move) {
+        move = Math.max(0, Math.min(move, events.length));
+        int point = Math.min(move / checkpointEvery, checkpoints.size() - 1);
+        GameSync sync = new GameSync(ships);
+        sync.applySnapshot(new SyncSnapshot(0, GameState.PLAYER_TURN, checkpoints.get(point)));
+        for (int i = point * checkpointEvery; i < move; i++) {
+            sync.applyShot(mine(i), row(i), col(i), hit(i));
+        }
+        return sync;
+    }
+
+    private static Board[] readBoards(DataInputStream in) throws IOException {
+        Board[] boards = new Board[GameSync.BOARDS];
+        boards[GameSync.SHOTS_AT_ME] = readBoard(in);
+        boards[GameSync.MY_SHOTS] = readBoard(in);
+        boards[GameSync.MY_HITS] = readBoard(in);
+        return boards;
+    }
+
+    private static Board readBoard(DataInputStream in) throws IOException {
+        return Board.of(in.readLong(), in.readLong());
+    }
+}
@@ -0,0 +1,187 @@
+package com.battleship.client.replay;
+
+import com.battleship.client.concurrent.Tasks;
+import com.battleship.common.Board;
+import com.battleship.common.GameState;
+import com.battleship.common.GameSync;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Запись партии для повтора. Файл: заголовок с кораблями игрока и
+ * начальными досками, затем выстрелы по два байта (клетка, бит 7 —
+ * попадание, бит 8 — стрелял противник) и через каждые
+ * {@link #CHECKPOINT_EVERY} выстрелов — контрольная точка с досками,
+ * чтобы перемотка не проигрывала партию с начала. В конце — итог партии.
+ *
+ * <p>Выстрел пишется в буфер в памяти, а на диск его сбрасывает фоновая
+ * задача: поток JavaFX не ждёт диска, выстрелы, пришедшие пачкой, уходят
+ * одним сбросом, а оборванная запись всё равно читается. В каталоге остаются
+ * только {@code battleship.replaysKeep} (по умолчанию 100) последних повторов.
+ */
+public class ReplayWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x42535231; // "BSR1"
+    static final int CHECKPOINT_EVERY = 32;
+    static final int CHECKPOINT = 0x8000;
+    static final int END = 0xC000;
+
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'replay-'yyyyMMdd-HHmmss-SSS'.bsr'");
+    private static final int KEEP = Integer.getInteger("battleship.replaysKeep", 100);
+
+    private final Path path;
+    // BufferedOutputStream синхронизирован: фоновый сброс не рвёт записи потока JavaFX
+    private final DataOutputStream out;
+    private final GameSync sync;
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private int moves;
+    private volatile boolean closed;
+
+    private ReplayWriter(Path path, String player, String difficulty, GameSync snapshot) throws IOException {
+        this.path = path;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        this.sync = snapshot;
+        out.writeInt(MAGIC);
+        out.writeByte(CHECKPOINT_EVERY);
+        out.writeLong(System.currentTimeMillis());
+        out.writeUTF(player);
+        out.writeUTF(difficulty != null ? difficulty : "");
+        writeBoard(sync.board(GameSync.MY_SHIPS));
+        writeBoards();
+        scheduleFlush();
+    }
+
+    /** Каталог повторов: {@code battleship.replays}, по умолчанию ~/.battleship/replays. */
+    public static Path directory() {
+        return Path.of(System.getProperty("battleship.replays",
+                Path.of(System.getProperty("user.home"), ".battleship", "replays").toString()));
+    }
+
+    /**
+     * Начинает запись с досок {@code snapshot} (снимок {@link GameSync#forPlayer},
+     * дальше им владеет запись); null, если писать некуда — партия идёт без
+     * повтора. Создаёт каталог и файл, поэтому зовётся из фоновой задачи.
+     */
+    public static ReplayWriter start(String player, String difficulty, GameSync snapshot) {
+        try {
+            Path dir = directory();
+            Files.createDirectories(dir);
+            Tasks.submit(() -> prune(dir, KEEP));
+            return new ReplayWriter(dir.resolve(FILE_NAME.format(LocalDateTime.now())), player, difficulty, snapshot);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public void record(boolean mine, int row, int col, boolean hit) {
+        if (closed) return;
+        sync.applyShot(mine, row, col, hit);
+        try {
+            out.writeShort(Board.index(row, col) | (hit ? 1 << 7 : 0) | (mine ? 0 : 1 << 8));
+            if (++moves % CHECKPOINT_EVERY == 0) {
+                out.writeShort(CHECKPOINT);
+                writeBoards();
+            }
+            scheduleFlush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            close();
+        }
+    }
+
+    /**
+     * Доски после RESYNC: выстрелы, которых запись не видела (потерянные
+     * дельты), дописываются как обычные — сначала свои, потом противника.
+     * Порядок внутри пропуска неизвестен, но доски после него совпадают.
+     */
+    public void resync(GameSync current) {
+        Board mine = current.board(GameSync.MY_SHOTS).copy();
+        mine.andNot(sync.board(GameSync.MY_SHOTS));
+        Board hits = current.board(GameSync.MY_HITS);
+        for (int cell = mine.nextSetBit(0); cell >= 0; cell = mine.nextSetBit(cell + 1)) {
+            record(true, cell / Board.SIZE, cell % Board.SIZE, hits.get(cell));
+        }
+        Board theirs = current.board(GameSync.SHOTS_AT_ME).copy();
+        theirs.andNot(sync.board(GameSync.SHOTS_AT_ME));
+        Board ships = sync.board(GameSync.MY_SHIPS);
+        for (int cell = theirs.nextSetBit(0); cell >= 0; cell = theirs.nextSetBit(cell + 1)) {
+            record(false, cell / Board.SIZE, cell % Board.SIZE, ships.get(cell));
+        }
+    }
+
+    /** Итог партии; {@code result} — null, если партия брошена. */
+    public void finish(GameState result) {
+        if (closed) return;
+        try {
+            out.writeShort(END | (result != null ? result.ordinal() + 1 : 0));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        close();
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushQueued.compareAndSet(false, true)) return;
+        Tasks.submit(() -> {
+            flushQueued.set(false);
+            if (closed) return;
+            try {
+                out.flush();
+            } catch (IOException e) {
+                // запись закрыта между проверкой и сбросом — её закрытие и сбросило буфер
+                if (!closed) e.printStackTrace();
+            }
+        });
+    }
+
+    /** Удаляет самые старые повторы, оставляя {@code keep} последних (имена сортируются по времени). */
+    static void prune(Path dir, int keep) {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> replays = files
+                    .filter(p -> p.getFileName().toString().startsWith("replay-")
+                            && p.getFileName().toString().endsWith(".bsr"))
+                    .sorted()
+                    .toList();
+            for (int i = 0; i < replays.size() - keep; i++) {
+                Files.deleteIfExists(replays.get(i));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // корабли игрока не меняются, их достаточно записать в заголовке
+    private void writeBoards() throws IOException {
+        writeBoard(sync.board(GameSync.SHOTS_AT_ME));
+        writeBoard(sync.board(GameSync.MY_SHOTS));
+        writeBoard(sync.board(GameSync.MY_HITS));
+    }
+
+    private void writeBoard(Board board) throws IOException {
+        out.writeLong(board.low());
+        out.writeLong(board.high());
+    }
+}
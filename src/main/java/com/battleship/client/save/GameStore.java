@@ -0,0 +1,326 @@
+package com.battleship.client.save;
+
+import com.battleship.client.ai.OfflineGame;
+import com.battleship.common.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сохранённые партии против компьютера. Каждая партия — свой файл: снимок
+ * начальной позиции в формате {@link MessageCodec} и за ним журнал ходов,
+ * по байту на выстрел (клетка, бит 7 — стрелял компьютер), так что
+ * сохранение после хода — дозапись нескольких байт. Загрузка повторяет
+ * журнал поверх снимка, вместе с памятью ИИ.
+ *
+ * <p>Список партий берётся только из индекса {@code index.bin}: он тоже
+ * только дописывается («партия обновлена», «партия удалена»), целиком
+ * держится в памяти и сжимается при открытии, когда устаревших записей
+ * становится заметно больше живых.
+ */
+public class GameStore {
+
+    private static final int MAGIC = 0x42534731; // "BSG1"
+    private static final byte PUT = 1;
+    private static final byte DROP = 2;
+    // сжимать, когда записей в журнале индекса больше, чем 4 * партий + запас
+    private static final int COMPACT_RATIO = 4;
+    private static final int COMPACT_SLACK = 1024;
+
+    private static GameStore shared;
+
+    private final Path dir;
+    private final Map<Integer, SavedGame> index = new HashMap<>();
+    private FileChannel indexLog;
+    private int records;
+    private int nextId = 1;
+
+    public GameStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        loadIndex();
+    }
+
+    /** Хранилище в {@code battleship.saves}, по умолчанию ~/.battleship/saves. */
+    public static synchronized GameStore shared() throws IOException {
+        if (shared == null) {
+            String path = System.getProperty("battleship.saves",
+                    Path.of(System.getProperty("user.home"), ".battleship", "saves").toString());
+            shared = new GameStore(Path.of(path));
+        }
+        return shared;
+    }
+
+    /** То же, но null, если каталог недоступен: играть можно и без сохранений. */
+    public static GameStore sharedOrNull() {
+        try {
+            return shared();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /** Незаконченные партии игрока, последние сверху. */
+    public synchronized SavedGame[] list(String owner) {
+        return index.values().stream()
+                .filter(save -> save.owner.equals(owner))
+                .sorted(Comparator.comparingLong((SavedGame save) -> save.updatedAt).reversed())
+                .toArray(SavedGame[]::new);
+    }
+
+    /** Начинает сохранять партию; null, если записать не удалось — тогда партия идёт без сохранения. */
+    public synchronized Journal create(OfflineGame game) {
+        try {
+            return createJournal(game);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /** Загружает партию и продолжает её журнал; null, если её нет, она чужая или не читается. */
+    public synchronized Journal open(int id, String owner) {
+        SavedGame save = index.get(id);
+        if (save == null || !save.owner.equals(owner)) return null;
+        try {
+            return openJournal(id);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private Journal createJournal(OfflineGame game) throws IOException {
+        int id = nextId++;
+        byte[] snapshot = MessageCodec.encode(new Message(MessageType.GAME_STATE, game.getGame()));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(snapshot.length + 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(snapshot.length);
+        out.write(snapshot);
+
+        FileChannel file = FileChannel.open(file(id), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        writeFully(file, bytes.toByteArray());
+        Journal journal = new Journal(id, game, file);
+        put(journal.entry());
+        return journal;
+    }
+
+    private Journal openJournal(int id) throws IOException {
+        byte[] bytes = Files.readAllBytes(file(id));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) throw new StreamCorruptedException("Не файл сохранения: " + file(id));
+        byte[] snapshot = new byte[in.readInt()];
+        in.readFully(snapshot);
+        Game game = (Game) MessageCodec.decode(snapshot).getPayload();
+
+        OfflineGame offline = new OfflineGame(game);
+        FileChannel file = FileChannel.open(file(id), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        Journal journal = new Journal(id, offline, file);
+        for (int move; (move = in.read()) >= 0; ) {
+            journal.replay(move);
+        }
+        return journal;
+    }
+
+    public synchronized void delete(int id) {
+        if (index.remove(id) == null) return;
+        try {
+            appendIndex(DROP, null, id);
+            Files.deleteIfExists(file(id));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Path file(int id) {
+        return dir.resolve(id + ".bsg");
+    }
+
+    private void put(SavedGame save) throws IOException {
+        index.put(save.id, save);
+        appendIndex(PUT, save, save.id);
+    }
+
+    private void appendIndex(byte op, SavedGame save, int id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(op);
+        if (op == PUT) {
+            MessageCodec.writeSave(out, save);
+        } else {
+            out.writeInt(id);
+        }
+        writeFully(indexLog, bytes.toByteArray());
+        records++;
+        // каждый ход дописывает строку, так что долгая сессия тоже сжимает индекс
+        if (needsCompaction()) {
+            indexLog.close();
+            Path path = dir.resolve("index.bin");
+            compact(path);
+            indexLog = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private void loadIndex() throws IOException {
+        Path path = dir.resolve("index.bin");
+        byte[] bytes = Files.exists(path) ? Files.readAllBytes(path) : new byte[0];
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int good = 0;
+        try {
+            while (good < bytes.length) {
+                byte op = in.readByte();
+                if (op == PUT) {
+                    SavedGame save = MessageCodec.readSave(in);
+                    index.put(save.id, save);
+                    nextId = Math.max(nextId, save.id + 1);
+                } else if (op == DROP) {
+                    int id = in.readInt();
+                    index.remove(id);
+                    nextId = Math.max(nextId, id + 1);
+                } else {
+                    break;
+                }
+                records++;
+                good = bytes.length - in.available();
+            }
+        } catch (EOFException e) {
+            // запись, оборванная на середине, — отбрасываем её
+        }
+
+        if (good < bytes.length || needsCompaction()) {
+            compact(path);
+        }
+        indexLog = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /** Один порог и при открытии, и при дописывании — иначе индекс сжимался бы на каждом запуске. */
+    private boolean needsCompaction() {
+        return records > COMPACT_RATIO * index.size() + COMPACT_SLACK;
+    }
+
+    private void compact(Path path) throws IOException {
+        Path tmp = dir.resolve("index.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            for (SavedGame save : index.values()) {
+                out.writeByte(PUT);
+                MessageCodec.writeSave(out, save);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = index.size();
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Журнал одной партии: ходы дописываются в её файл после каждого выстрела игрока. */
+    public final class Journal {
+
+        private final int id;
+        private final OfflineGame game;
+        private final FileChannel file;
+        private int shots;
+        private int hits;
+        private int losses;
+        private boolean closed;
+
+        private Journal(int id, OfflineGame game, FileChannel file) {
+            this.id = id;
+            this.game = game;
+            this.file = file;
+        }
+
+        public OfflineGame game() {
+            return game;
+        }
+
+        /** Дописывает ответы судьи на выстрел; законченная партия удаляется. */
+        public void append(List<Message> results) {
+            if (closed) return;
+            byte[] moves = new byte[results.size()];
+            int count = 0;
+            for (Message result : results) {
+                switch (result.getType()) {
+                    case SHOT_RESULT, OPPONENT_SHOT -> {
+                        int[] r = (int[]) result.getPayload();
+                        boolean computer = result.getType() == MessageType.OPPONENT_SHOT;
+                        moves[count++] = (byte) (Board.index(r[0], r[1]) | (computer ? 0x80 : 0));
+                        count(computer, r[2] == 1);
+                    }
+                    case GAME_OVER -> {
+                        discard();
+                        return;
+                    }
+                    default -> { }
+                }
+            }
+            if (count == 0) return;
+            synchronized (GameStore.this) {
+                try {
+                    writeFully(file, count == moves.length ? moves : Arrays.copyOf(moves, count));
+                    put(entry());
+                } catch (IOException e) {
+                    // игра продолжается и без сохранения
+                    e.printStackTrace();
+                    close();
+                }
+            }
+        }
+
+        /** Партия закончена или сдана — сохранение больше не нужно. */
+        public void discard() {
+            close();
+            delete(id);
+        }
+
+        public void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                file.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void replay(int move) {
+            int cell = move & 0x7F;
+            boolean computer = (move & 0x80) != 0;
+            int row = cell / Board.SIZE, col = cell % Board.SIZE;
+            game.replay(computer, row, col);
+            Game g = game.getGame();
+            count(computer, computer ? g.playerBoard.get(cell) : g.computerBoard.get(cell));
+        }
+
+        private void count(boolean computer, boolean hit) {
+            if (computer) {
+                if (hit) losses++;
+            } else {
+                shots++;
+                if (hit) hits++;
+            }
+        }
+
+        private SavedGame entry() {
+            Game g = game.getGame();
+            return new SavedGame(id, g.playerName, g.difficulty != null ? g.difficulty : "", System.currentTimeMillis(), shots, hits, losses);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.battleship.client.view;
+
+import com.battleship.client.concurrent.FxBatcher;
+import com.battleship.common.Board;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+import java.util.BitSet;
+
+/**
+ * Поле, нарисованное на одном Canvas вместо сотни узлов сцены.
+ * Клетка по координатам мыши находится арифметикой, цвет клетки хранится
+ * в массиве, а перерисовываются только изменённые клетки — один раз за кадр,
+ * в конце пачки {@link FxBatcher}.
+ */
+public class BoardView extends Canvas {
+
+    public interface CellHandler {
+        void handle(int row, int col);
+    }
+
+    private static final Color DEFAULT_FILL = Color.web("#1e1e2e");
+    private static final Color DEFAULT_LINE = Color.web("#585b70");
+
+    private final int size;
+    private final double cellSize;
+    private final Color[] cells;
+    private final BitSet dirty;
+    private boolean flushScheduled;
+
+    private Color line = DEFAULT_LINE;
+    private CellHandler onCellClicked;
+    private CellHandler onCellEntered;
+    private Runnable onBoardExited;
+
+    private int hoverRow = -1;
+    private int hoverCol = -1;
+
+    public BoardView() {
+        this(Board.SIZE, 40);
+    }
+
+    public BoardView(int size, double cellSize) {
+        super(size * cellSize, size * cellSize);
+        this.size = size;
+        this.cellSize = cellSize;
+        this.cells = new Color[size * size];
+        this.dirty = new BitSet(size * size);
+
+        fill(DEFAULT_FILL);
+
+        setOnMouseClicked(e -> {
+            int index = cellAt(e);
+            if (index >= 0 && onCellClicked != null) {
+                onCellClicked.handle(index / size, index % size);
+            }
+        });
+        setOnMouseMoved(this::updateHover);
+        setOnMouseExited(e -> {
+            hoverRow = -1;
+            hoverCol = -1;
+            if (onBoardExited != null) onBoardExited.run();
+        });
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Color getCell(int row, int col) {
+        return cells[row * size + col];
+    }
+
+    public void setCell(int row, int col, Color color) {
+        int index = row * size + col;
+        if (color.equals(cells[index])) return;
+        cells[index] = color;
+        markDirty(index);
+    }
+
+    public void fill(Color color) {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = color;
+        }
+        dirty.set(0, cells.length);
+        scheduleFlush();
+    }
+
+    public void setLineColor(Color color) {
+        line = color;
+        dirty.set(0, cells.length);
+        scheduleFlush();
+    }
+
+    public void setOnCellClicked(CellHandler handler) {
+        onCellClicked = handler;
+    }
+
+    public void setOnCellEntered(CellHandler handler) {
+        onCellEntered = handler;
+    }
+
+    public void setOnBoardExited(Runnable handler) {
+        onBoardExited = handler;
+    }
+
+    /** Немедленно дорисовывает все изменённые клетки. */
+    public void flush() {
+        flushScheduled = false;
+        GraphicsContext g = getGraphicsContext2D();
+        g.setStroke(line);
+        g.setLineWidth(1);
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            double x = (i % size) * cellSize;
+            double y = (i / size) * cellSize;
+            g.setFill(cells[i]);
+            g.fillRect(x, y, cellSize, cellSize);
+            g.strokeRect(x + 0.5, y + 0.5, cellSize - 1, cellSize - 1);
+        }
+        dirty.clear();
+    }
+
+    private void markDirty(int index) {
+        dirty.set(index);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) return;
+        flushScheduled = true;
+        if (Platform.isFxApplicationThread()) {
+            FxBatcher.shared().beforeRender(this::flush);
+        } else {
+            flush();
+        }
+    }
+
+    private int cellAt(MouseEvent e) {
+        int col = (int) (e.getX() / cellSize);
+        int row = (int) (e.getY() / cellSize);
+        if (row < 0 || row >= size || col < 0 || col >= size) return -1;
+        return row * size + col;
+    }
+
+    private void updateHover(MouseEvent e) {
+        int index = cellAt(e);
+        if (index < 0) return;
+        int row = index / size, col = index % size;
+        if (row == hoverRow && col == hoverCol) return;
+        hoverRow = row;
+        hoverCol = col;
+        if (onCellEntered != null) onCellEntered.handle(row, col);
+    }
+}
@@ -0,0 +1,203 @@
+package com.battleship.client.view;
+
+import com.battleship.client.concurrent.FxBatcher;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+/**
+ * Поле мега-боя в окне фиксированного размера: рисуются только видимые
+ * клетки, так что кадр стоит одинаково на поле 10x10 и 1000x1000.
+ * Перетаскивание двигает окно, колесо меняет масштаб вокруг курсора.
+ * Мелкие клетки рисуются попиксельно в одну картинку, крупные —
+ * прямоугольниками с сеткой.
+ */
+public class MegaBoardView extends Canvas {
+
+    /** Состояние клетки — индекс в палитре. */
+    public interface CellSource {
+        int state(int row, int col);
+    }
+
+    public static final int WATER = 0;
+    public static final int SHIP = 1;
+    public static final int MISS = 2;
+    public static final int HIT = 3;
+    public static final int SUNK = 4;
+
+    private static final Color[] PALETTE = {
+            Color.web("#1e1e2e"), Color.web("#89b4fa"), Color.web("#585b70"),
+            Color.web("#f38ba8"), Color.web("#d20f39")
+    };
+    private static final int[] ARGB = new int[PALETTE.length];
+    private static final Color LINE = Color.web("#585b70");
+    private static final double MAX_CELL = 40;
+    // мельче — без сетки и попиксельно
+    private static final double GRID_CELL = 6;
+    private static final double DRAG_SLOP = 4;
+
+    static {
+        for (int i = 0; i < PALETTE.length; i++) {
+            Color c = PALETTE[i];
+            ARGB[i] = 0xFF000000 | (int) Math.round(c.getRed() * 255) << 16
+                    | (int) Math.round(c.getGreen() * 255) << 8 | (int) Math.round(c.getBlue() * 255);
+        }
+    }
+
+    private int size = 1;
+    private CellSource source = (row, col) -> WATER;
+    private BoardView.CellHandler onCellClicked;
+
+    // левый верхний угол окна в клетках и размер клетки в пикселях
+    private double originX;
+    private double originY;
+    private double cellSize;
+    private boolean redrawScheduled;
+    private WritableImage pixels;
+
+    private double pressX;
+    private double pressY;
+    private boolean dragging;
+
+    public MegaBoardView() {
+        this(560, 560);
+    }
+
+    public MegaBoardView(double width, double height) {
+        super(width, height);
+        setOnMousePressed(e -> {
+            pressX = e.getX();
+            pressY = e.getY();
+            dragging = false;
+        });
+        setOnMouseDragged(this::pan);
+        setOnMouseClicked(e -> {
+            if (dragging || e.getButton() != MouseButton.PRIMARY || onCellClicked == null) return;
+            int col = (int) Math.floor(originX + e.getX() / cellSize);
+            int row = (int) Math.floor(originY + e.getY() / cellSize);
+            if (row >= 0 && row < size && col >= 0 && col < size) onCellClicked.handle(row, col);
+        });
+        setOnScroll(this::zoom);
+    }
+
+    /** Новое поле: масштаб сбрасывается так, чтобы поле было видно целиком. */
+    public void setBoard(int size, CellSource source) {
+        this.size = size;
+        this.source = source;
+        cellSize = Math.min(getWidth(), getHeight()) / size;
+        originX = 0;
+        originY = 0;
+        invalidate();
+    }
+
+    public void setOnCellClicked(BoardView.CellHandler handler) {
+        onCellClicked = handler;
+    }
+
+    /** Показать клетку: окно сдвигается, только если она за его краем. */
+    public void reveal(int row, int col) {
+        double cols = getWidth() / cellSize, rows = getHeight() / cellSize;
+        if (col < originX || col + 1 > originX + cols) originX = col - cols / 2;
+        if (row < originY || row + 1 > originY + rows) originY = row - rows / 2;
+        clampOrigin();
+        invalidate();
+    }
+
+    /** Перерисовка видимого окна — не чаще раза в кадр. */
+    public void invalidate() {
+        if (redrawScheduled) return;
+        redrawScheduled = true;
+        FxBatcher.shared().beforeRender(this::redraw);
+    }
+
+    private void pan(MouseEvent e) {
+        if (!dragging && Math.hypot(e.getX() - pressX, e.getY() - pressY) < DRAG_SLOP) return;
+        dragging = true;
+        originX -= (e.getX() - pressX) / cellSize;
+        originY -= (e.getY() - pressY) / cellSize;
+        pressX = e.getX();
+        pressY = e.getY();
+        clampOrigin();
+        invalidate();
+    }
+
+    private void zoom(ScrollEvent e) {
+        double fit = Math.min(getWidth(), getHeight()) / size;
+        double next = Math.max(fit, Math.min(MAX_CELL, cellSize * Math.pow(1.15, e.getDeltaY() / 40)));
+        // клетка под курсором остаётся под курсором
+        originX += e.getX() / cellSize - e.getX() / next;
+        originY += e.getY() / cellSize - e.getY() / next;
+        cellSize = next;
+        clampOrigin();
+        invalidate();
+    }
+
+    private void clampOrigin() {
+        originX = Math.max(0, Math.min(originX, size - getWidth() / cellSize));
+        originY = Math.max(0, Math.min(originY, size - getHeight() / cellSize));
+    }
+
+    private void redraw() {
+        redrawScheduled = false;
+        GraphicsContext g = getGraphicsContext2D();
+        g.setFill(PALETTE[WATER]);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (cellSize < GRID_CELL) {
+            drawPixels(g);
+        } else {
+            drawCells(g);
+        }
+    }
+
+    private void drawCells(GraphicsContext g) {
+        int firstCol = (int) originX, firstRow = (int) originY;
+        int lastCol = Math.min(size - 1, (int) (originX + getWidth() / cellSize));
+        int lastRow = Math.min(size - 1, (int) (originY + getHeight() / cellSize));
+        g.setStroke(LINE);
+        g.setLineWidth(1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            double y = (row - originY) * cellSize;
+            for (int col = firstCol; col <= lastCol; col++) {
+                double x = (col - originX) * cellSize;
+                int state = source.state(row, col);
+                if (state != WATER) {
+                    g.setFill(PALETTE[state]);
+                    g.fillRect(x, y, cellSize, cellSize);
+                }
+                g.strokeRect(x + 0.5, y + 0.5, cellSize - 1, cellSize - 1);
+            }
+        }
+    }
+
+    // мелкие клетки: каждый пиксель берёт цвет клетки под своим центром
+    private void drawPixels(GraphicsContext g) {
+        int width = (int) getWidth(), height = (int) getHeight();
+        if (pixels == null || pixels.getWidth() != width || pixels.getHeight() != height) {
+            pixels = new WritableImage(width, height);
+        }
+        PixelWriter writer = pixels.getPixelWriter();
+        int[] line = new int[width];
+        int[] cols = new int[width];
+        for (int x = 0; x < width; x++) cols[x] = (int) (originX + (x + 0.5) / cellSize);
+        for (int y = 0; y < height; y++) {
+            int row = (int) (originY + (y + 0.5) / cellSize);
+            if (row >= size) {
+                Arrays.fill(line, ARGB[WATER]);
+            } else {
+                for (int x = 0; x < width; x++) {
+                    line[x] = cols[x] < size ? ARGB[source.state(row, cols[x])] : ARGB[WATER];
+                }
+            }
+            writer.setPixels(0, y, width, 1, PixelFormat.getIntArgbInstance(), line, 0, width);
+        }
+        g.drawImage(pixels, 0, 0);
+    }
+}
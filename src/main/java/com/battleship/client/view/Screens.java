@@ -0,0 +1,152 @@
+package com.battleship.client.view;
+
+import com.battleship.client.Startup;
+import com.battleship.client.concurrent.Tasks;
+import com.battleship.client.metrics.SceneLoadEvent;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Экраны приложения на одном главном окне. Каждый FXML разбирается один раз:
+ * корень, контроллер и сцена кэшируются, при возврате на экран контроллер
+ * получает новые данные через свой init-метод вместо пересоздания.
+ * {@link #prefetch} заранее разбирает FXML в фоне — сцену JavaFX разрешает
+ * создавать только в своём потоке, поэтому она достраивается при показе.
+ * По той же причине initialize() контроллера не должен трогать ничего, кроме
+ * своих узлов: остальное — в {@link Setup}.
+ */
+public final class Screens {
+
+    public enum Screen {
+        LOGIN("login.fxml", 500, 600, "Морской бой — вход"),
+        LOBBY("lobby.fxml", 600, 700, "Морской бой — Лобби"),
+        PLACEMENT("placement.fxml", 1200, 800, "Морской бой — расстановка"),
+        GAME("game.fxml", 1300, 800, "Морской бой — Битва"),
+        MEGA("mega.fxml", 1400, 800, "Морской бой — Мега-бой"),
+        SPECTATE("spectate.fxml", 1400, 800, "Морской бой — Наблюдение");
+
+        final String fxml;
+        final double width;
+        final double height;
+        final String title;
+
+        Screen(String fxml, double width, double height, String title) {
+            this.fxml = fxml;
+            this.width = width;
+            this.height = height;
+            this.title = title;
+        }
+    }
+
+    /**
+     * Контроллер, которому нужен поток JavaFX (соединение с обработчиками,
+     * всплывающие окна): {@link #setup()} вызывается один раз при первом
+     * показе экрана, уже после разбора FXML.
+     */
+    public interface Setup {
+        void setup();
+    }
+
+    private static final class Loaded {
+        final Parent root;
+        final Object controller;
+        Scene scene;
+
+        Loaded(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+
+    private static final Map<Screen, Future<Loaded>> cache = new ConcurrentHashMap<>();
+    private static Stage stage;
+    private static Screen current;
+
+    private Screens() {
+    }
+
+    public static void init(Stage primary) {
+        stage = primary;
+    }
+
+    public static Stage stage() {
+        return stage;
+    }
+
+    /** Показывает экран в главном окне и возвращает его контроллер. Только из потока JavaFX. */
+    @SuppressWarnings("unchecked")
+    public static <T> T show(Screen screen) throws IOException {
+        SceneLoadEvent event = new SceneLoadEvent(
+                (current != null ? current.name().toLowerCase() : "start") + " → " + screen.name().toLowerCase(),
+                screen.fxml);
+        event.cached = cache.containsKey(screen);
+
+        Loaded loaded;
+        try {
+            loaded = await(submit(screen, false));
+        } catch (IOException e) {
+            cache.remove(screen);
+            throw e;
+        }
+        event.loaded();
+
+        if (loaded.scene == null) {
+            loaded.scene = new Scene(loaded.root, screen.width, screen.height);
+            if (loaded.controller instanceof Setup setup) setup.setup();
+        }
+        stage.setScene(loaded.scene);
+        stage.setTitle(screen.title);
+        stage.centerOnScreen();
+        current = screen;
+        event.commit();
+        return (T) loaded.controller;
+    }
+
+    /** Разбирает FXML экрана в фоне, если он ещё не в кэше. */
+    public static void prefetch(Screen screen) {
+        submit(screen, true);
+    }
+
+    private static Future<Loaded> submit(Screen screen, boolean background) {
+        Future<Loaded> existing = cache.get(screen);
+        if (existing != null) return existing;
+        FutureTask<Loaded> task = new FutureTask<>(() -> load(screen));
+        existing = cache.putIfAbsent(screen, task);
+        if (existing != null) return existing;
+        if (background) {
+            Tasks.submit(task);
+        } else {
+            task.run();
+        }
+        return task;
+    }
+
+    private static Loaded load(Screen screen) throws IOException {
+        long start = System.nanoTime();
+        FXMLLoader loader = new FXMLLoader(Screens.class.getResource("/com/battleship/client/view/" + screen.fxml));
+        Parent root = loader.load();
+        Startup.record("разбор " + screen.fxml, start, System.nanoTime());
+        return new Loaded(root, loader.getController());
+    }
+
+    private static Loaded await(Future<Loaded> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Загрузка экрана прервана", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.battleship.client.view;
+
+import com.battleship.client.concurrent.FxBatcher;
+import com.battleship.common.Board;
+import com.battleship.common.GameState;
+import com.battleship.common.GameSync;
+import com.battleship.common.LiveGame;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Много партий мелкими плитками на одном Canvas: у каждой партии своё
+ * место в сетке, занятое до её конца, так что обновление перерисовывает
+ * только свою плитку, без раскладки соседних. Детали — только нужные для
+ * обзора: без сетки, одна заливка на непустую клетку.
+ */
+public class TileBoardView extends Canvas {
+
+    private static final int COLUMNS = 8;
+    private static final int ROWS = 8;
+    private static final double CELL = 4;
+    private static final double BOARD = CELL * Board.SIZE;
+    private static final double GAP = 4;
+    private static final double TILE_WIDTH = BOARD * 2 + GAP;
+    private static final double TILE_HEIGHT = BOARD + 16;
+    private static final double PAD = 10;
+
+    private static final Color BACKGROUND = Color.web("#1e1e2e");
+    private static final Color WATER = Color.web("#313244");
+    private static final Color SHIP = Color.web("#89b4fa");
+    private static final Color HIT = Color.web("#f38ba8");
+    private static final Color MISS = Color.web("#585b70");
+    private static final Color FOCUS = Color.web("#f9e2af");
+    private static final Color TEXT = Color.web("#a6adc8");
+    private static final Font NAME_FONT = Font.font(10);
+
+    static final int SLOTS = COLUMNS * ROWS;
+
+    private final LiveGame[] slots = new LiveGame[SLOTS];
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private final boolean[] dirty = new boolean[slots.length];
+    private boolean redrawScheduled;
+    private int focused = -1;
+    private IntConsumer onTileClicked;
+
+    public TileBoardView() {
+        super(PAD * 2 + COLUMNS * (TILE_WIDTH + PAD) - PAD, PAD * 2 + ROWS * (TILE_HEIGHT + PAD) - PAD);
+        GraphicsContext g = getGraphicsContext2D();
+        g.setFill(BACKGROUND);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        setOnMouseClicked(e -> {
+            int col = (int) ((e.getX() - PAD) / (TILE_WIDTH + PAD));
+            int row = (int) ((e.getY() - PAD) / (TILE_HEIGHT + PAD));
+            if (col < 0 || col >= COLUMNS || row < 0 || row >= ROWS) return;
+            LiveGame game = slots[row * COLUMNS + col];
+            if (game != null && onTileClicked != null) onTileClicked.accept(game.id);
+        });
+    }
+
+    public void setOnTileClicked(IntConsumer handler) {
+        onTileClicked = handler;
+    }
+
+    /** Последнее известное состояние партии или null. */
+    public LiveGame get(int id) {
+        Integer slot = slotById.get(id);
+        return slot != null ? slots[slot] : null;
+    }
+
+    /** Число показанных партий. */
+    public int count() {
+        return slotById.size();
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) markDirty(i);
+            slots[i] = null;
+        }
+        slotById.clear();
+        focused = -1;
+    }
+
+    /** Новая, изменившаяся или закончившаяся партия; false — для новой нет места. */
+    public boolean update(LiveGame game) {
+        Integer slot = slotById.get(game.id);
+        if (game.isEnded()) {
+            if (slot == null) return true;
+            slotById.remove(game.id);
+            slots[slot] = null;
+            markDirty(slot);
+            return true;
+        }
+        if (slot == null) {
+            slot = freeSlot();
+            if (slot < 0) return false;
+            slotById.put(game.id, slot);
+        }
+        slots[slot] = game;
+        markDirty(slot);
+        return true;
+    }
+
+    public void setFocused(int id) {
+        Integer old = slotById.get(focused);
+        if (old != null) markDirty(old);
+        focused = id;
+        Integer now = slotById.get(id);
+        if (now != null) markDirty(now);
+    }
+
+    private int freeSlot() {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == null) return i;
+        }
+        return -1;
+    }
+
+    private void markDirty(int slot) {
+        dirty[slot] = true;
+        if (redrawScheduled) return;
+        redrawScheduled = true;
+        FxBatcher.shared().beforeRender(this::redraw);
+    }
+
+    private void redraw() {
+        redrawScheduled = false;
+        GraphicsContext g = getGraphicsContext2D();
+        g.setFont(NAME_FONT);
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (!dirty[slot]) continue;
+            dirty[slot] = false;
+            LiveGame game = slots[slot];
+            drawTile(g, slot, game, game != null && game.id == focused);
+        }
+    }
+
+    /** Одна плитка; статический, чтобы бенчмарк мерил рисование без потока JavaFX. */
+    static void drawTile(GraphicsContext g, int slot, LiveGame game, boolean focused) {
+        double x = PAD + (slot % COLUMNS) * (TILE_WIDTH + PAD);
+        double y = PAD + (slot / COLUMNS) * (TILE_HEIGHT + PAD);
+        g.setFill(BACKGROUND);
+        g.fillRect(x - 3, y - 3, TILE_WIDTH + 6, TILE_HEIGHT + 6);
+        if (game == null) return;
+
+        Board ships = game.boards[GameSync.MY_SHIPS];
+        Board shotsAtMe = game.boards[GameSync.SHOTS_AT_ME];
+        Board myShots = game.boards[GameSync.MY_SHOTS];
+        Board myHits = game.boards[GameSync.MY_HITS];
+        g.setFill(WATER);
+        g.fillRect(x, y, BOARD, BOARD);
+        g.fillRect(x + BOARD + GAP, y, BOARD, BOARD);
+        for (int i = 0; i < Board.CELLS; i++) {
+            double cx = (i % Board.SIZE) * CELL, cy = (i / Board.SIZE) * CELL;
+            Color own = shotsAtMe.get(i) ? (ships.get(i) ? HIT : MISS) : ships.get(i) ? SHIP : null;
+            if (own != null) {
+                g.setFill(own);
+                g.fillRect(x + cx, y + cy, CELL, CELL);
+            }
+            if (myShots.get(i)) {
+                g.setFill(myHits.get(i) ? HIT : MISS);
+                g.fillRect(x + BOARD + GAP + cx, y + cy, CELL, CELL);
+            }
+        }
+
+        g.setFill(game.state == GameState.PLAYER_WON ? SHIP : game.state == GameState.COMPUTER_WON ? HIT : TEXT);
+        g.fillText(game.player, x, y + BOARD + 12, TILE_WIDTH);
+        if (focused) {
+            g.setStroke(FOCUS);
+            g.setLineWidth(2);
+            g.strokeRect(x - 2, y - 2, TILE_WIDTH + 4, TILE_HEIGHT + 4);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.battleship.common;
+
+import java.io.Serializable;
+
+/**
+ * Поле 10x10 в виде битовой маски: клетка (row, col) — бит row * 10 + col,
+ * первые 64 клетки лежат в {@code lo}, остальные 36 — в {@code hi}.
+ */
+public class Board implements Serializable {
+    public static final int SIZE = 10;
+    public static final int CELLS = SIZE * SIZE;
+
+    private static final long HI_MASK = (1L << (CELLS - 64)) - 1;
+
+    long lo;
+    long hi;
+
+    public Board() {
+    }
+
+    Board(long lo, long hi) {
+        this.lo = lo;
+        this.hi = hi & HI_MASK;
+    }
+
+    public static int index(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    public static boolean inside(int row, int col) {
+        return row >= 0 && row < SIZE && col >= 0 && col < SIZE;
+    }
+
+    public Board copy() {
+        return new Board(lo, hi);
+    }
+
+    public long low() { return lo; }
+    public long high() { return hi; }
+
+    public boolean get(int row, int col) {
+        return get(index(row, col));
+    }
+
+    public boolean get(int index) {
+        return index < 64
+                ? (lo & (1L << index)) != 0
+                : (hi & (1L << (index - 64))) != 0;
+    }
+
+    public void set(int row, int col) {
+        set(index(row, col));
+    }
+
+    public void set(int index) {
+        if (index < 64) lo |= 1L << index;
+        else hi |= 1L << (index - 64);
+    }
+
+    public void clear(int row, int col) {
+        clear(index(row, col));
+    }
+
+    public void clear(int index) {
+        if (index < 64) lo &= ~(1L << index);
+        else hi &= ~(1L << (index - 64));
+    }
+
+    public void clear() {
+        lo = 0;
+        hi = 0;
+    }
+
+    public void or(Board other) {
+        lo |= other.lo;
+        hi |= other.hi;
+    }
+
+    public void and(Board other) {
+        lo &= other.lo;
+        hi &= other.hi;
+    }
+
+    public void andNot(Board other) {
+        lo &= ~other.lo;
+        hi &= ~other.hi;
+    }
+
+    public boolean intersects(Board other) {
+        return (lo & other.lo) != 0 || (hi & other.hi) != 0;
+    }
+
+    public boolean containsAll(Board other) {
+        return (other.lo & ~lo) == 0 && (other.hi & ~hi) == 0;
+    }
+
+    public boolean isEmpty() {
+        return lo == 0 && hi == 0;
+    }
+
+    public int cardinality() {
+        return Long.bitCount(lo) + Long.bitCount(hi);
+    }
+
+    /** Индекс следующей занятой клетки начиная с {@code from}, либо -1. */
+    public int nextSetBit(int from) {
+        if (from < 64) {
+            long w = lo & (-1L << from);
+            if (w != 0) return Long.numberOfTrailingZeros(w);
+            from = 64;
+        }
+        if (from >= CELLS) return -1;
+        long w = hi & (-1L << (from - 64));
+        return w != 0 ? 64 + Long.numberOfTrailingZeros(w) : -1;
+    }
+
+    /** Поле из пары слов, как их отдают {@link #low()} и {@link #high()}. */
+    public static Board of(long lo, long hi) {
+        return new Board(lo, hi);
+    }
+
+    public static Board of(boolean[][] field) {
+        Board board = new Board();
+        for (int r = 0; r < SIZE; r++) {
+            for (int c = 0; c < SIZE; c++) {
+                if (field[r][c]) board.set(r, c);
+            }
+        }
+        return board;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Board b && b.lo == lo && b.hi == hi;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(lo) * 31 + Long.hashCode(hi);
+    }
+}
@@ -0,0 +1,214 @@
+package com.battleship.common;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Случайная расстановка флота по заранее посчитанным таблицам: для каждого
+ * размера корабля хранятся все допустимые позиции как маски клеток и ореола.
+ * {@link #next()} равномерна по всем расстановкам и идёт в два этапа.
+ * Корабли длиннее клетки получают позицию, равновероятную среди всех позиций
+ * своего размера на пустом поле; попытка отбрасывается на первом корабле,
+ * задевшем ореол предыдущих, подходит примерно одна из 31. Однопалубники
+ * выбираются среди ещё свободных клеток, и попытка принимается с
+ * вероятностью, пропорциональной произведению числа свободных клеток на
+ * каждом шаге, — это ровно снимает перекос такого выбора. Отказ на втором
+ * этапе возвращает к первому, иначе поля с тесным ореолом выпадали бы чаще.
+ * Точные веса «сколькими способами достраивается остаток флота» не
+ * хранятся: таблица на всё поле — около миллиона состояний на строку.
+ * Расстановка занимает около 35 мкс против 250 мкс у отбора всего флота
+ * разом, но число попыток, как и у любого точного отбора, не ограничено.
+ *
+ * <p>Позиция упакована в int: клетка носа (row * 10 + col), бит 7 — вертикаль,
+ * биты 8.. — размер.
+ */
+public class FleetGenerator {
+
+    private static final long[][] SHIP_LO = new long[Rules.MAX_SHIP + 1][];
+    private static final long[][] SHIP_HI = new long[Rules.MAX_SHIP + 1][];
+    private static final long[][] HALO_LO = new long[Rules.MAX_SHIP + 1][];
+    private static final long[][] HALO_HI = new long[Rules.MAX_SHIP + 1][];
+    private static final int[][] PLACEMENT = new int[Rules.MAX_SHIP + 1][];
+
+    private static final int CHUNK = 4096;
+    private static final long HI_MASK = (1L << (Board.CELLS - 64)) - 1;
+
+    /**
+     * Сколько клеток самое большее остаётся вне ореолов кораблей длиннее
+     * клетки из {@link Rules#FLEET}: их ореолы закрывают не меньше 40 клеток.
+     * Найдено перебором с отсечением, перепроверяется в тесте.
+     */
+    static final int MAX_FREE = 60;
+
+    static {
+        for (int size = 1; size <= Rules.MAX_SHIP; size++) {
+            int[] ids = new int[2 * Board.CELLS];
+            int count = 0;
+            for (int v = 0; v < (size == 1 ? 1 : 2); v++) {
+                for (int cell = 0; cell < Board.CELLS; cell++) {
+                    if (Rules.shipMaskRef(cell / Board.SIZE, cell % Board.SIZE, size, v == 1) != null) {
+                        ids[count++] = cell | v << 7 | size << 8;
+                    }
+                }
+            }
+            PLACEMENT[size] = Arrays.copyOf(ids, count);
+            SHIP_LO[size] = new long[count];
+            SHIP_HI[size] = new long[count];
+            HALO_LO[size] = new long[count];
+            HALO_HI[size] = new long[count];
+            for (int i = 0; i < count; i++) {
+                int p = ids[i];
+                Board ship = Rules.shipMaskRef(row(p), col(p), size, vertical(p));
+                Board halo = Rules.haloMaskRef(row(p), col(p), size, vertical(p));
+                SHIP_LO[size][i] = ship.lo;
+                SHIP_HI[size][i] = ship.hi;
+                HALO_LO[size][i] = halo.lo;
+                HALO_HI[size][i] = halo.hi;
+            }
+        }
+    }
+
+    private final int[] fleet;
+    /** Первый однопалубник во флоте: флот отсортирован по убыванию размера. */
+    private final int singles;
+    /** Наибольшее произведение числа свободных клеток по однопалубникам. */
+    private final long singlesBound;
+    private final SplittableRandom random;
+    private long blockedLo, blockedHi;
+    private long occupiedLo, occupiedHi;
+
+    public FleetGenerator() {
+        this(new SplittableRandom());
+    }
+
+    public FleetGenerator(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private FleetGenerator(SplittableRandom random) {
+        this.fleet = Rules.FLEET;
+        this.random = random;
+        int first = 0;
+        while (first < fleet.length && fleet[first] > 1) first++;
+        long bound = 1;
+        for (int s = first; s < fleet.length; s++) bound *= MAX_FREE - (s - first);
+        this.singles = first;
+        this.singlesBound = bound;
+    }
+
+    public static int row(int placement) { return (placement & 0x7F) / Board.SIZE; }
+    public static int col(int placement) { return (placement & 0x7F) % Board.SIZE; }
+    public static boolean vertical(int placement) { return (placement & 0x80) != 0; }
+    public static int size(int placement) { return placement >>> 8; }
+
+    /** Число всех допустимых позиций корабля данного размера на пустом поле. */
+    public static int placements(int size) {
+        return PLACEMENT[size].length;
+    }
+
+    public int[] next() {
+        int[] result = new int[fleet.length];
+        fill(result);
+        return result;
+    }
+
+    private void fill(int[] result) {
+        // без предела попыток: любой предел с запасным путём снова внёс бы перекос
+        while (!placeLarge(result) || !placeSingles(result)) {
+        }
+    }
+
+    /** Расставляет флот на поле и в список кораблей. */
+    public void place(Board board, List<Ship> ships) {
+        for (int p : next()) {
+            Rules.place(board, ships, row(p), col(p), size(p), vertical(p));
+        }
+    }
+
+    /** Последний результат {@link #next()} как занятые клетки. */
+    public Board occupied() {
+        return new Board(occupiedLo, occupiedHi);
+    }
+
+    private boolean placeLarge(int[] result) {
+        blockedLo = 0;
+        blockedHi = 0;
+        occupiedLo = 0;
+        occupiedHi = 0;
+        for (int s = 0; s < singles; s++) {
+            int size = fleet[s];
+            int pick = random.nextInt(PLACEMENT[size].length);
+            if ((SHIP_LO[size][pick] & blockedLo) != 0 || (SHIP_HI[size][pick] & blockedHi) != 0) {
+                return false;
+            }
+            result[s] = PLACEMENT[size][pick];
+            blockedLo |= HALO_LO[size][pick];
+            blockedHi |= HALO_HI[size][pick];
+            occupiedLo |= SHIP_LO[size][pick];
+            occupiedHi |= SHIP_HI[size][pick];
+        }
+        return true;
+    }
+
+    /**
+     * Однопалубники среди свободных клеток. Набор клеток получен с
+     * вероятностью 1 / (произведение числа свободных клеток), принятие
+     * умножает её на это произведение / {@link #singlesBound} — итог не
+     * зависит ни от набора, ни от поля после первого этапа.
+     */
+    private boolean placeSingles(int[] result) {
+        long freeLo = ~blockedLo, freeHi = ~blockedHi & HI_MASK;
+        long shipsLo = 0, shipsHi = 0;
+        long weight = 1;
+        for (int s = singles; s < fleet.length; s++) {
+            int lowCount = Long.bitCount(freeLo);
+            int free = lowCount + Long.bitCount(freeHi);
+            if (free == 0) return false;
+            weight *= free;
+            int pick = random.nextInt(free);
+            int cell = pick < lowCount ? nthBit(freeLo, pick) : 64 + nthBit(freeHi, pick - lowCount);
+            // у однопалубника одна позиция на клетку, и номер позиции совпадает с клеткой
+            result[s] = PLACEMENT[1][cell];
+            freeLo &= ~HALO_LO[1][cell];
+            freeHi &= ~HALO_HI[1][cell];
+            shipsLo |= SHIP_LO[1][cell];
+            shipsHi |= SHIP_HI[1][cell];
+        }
+        if (random.nextLong(singlesBound) >= weight) return false;
+        occupiedLo |= shipsLo;
+        occupiedHi |= shipsHi;
+        return true;
+    }
+
+    private static int nthBit(long bits, int n) {
+        for (int i = 0; i < n; i++) bits &= bits - 1;
+        return Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Массовая генерация для тестов и сервера: {@code count} расстановок,
+     * по два long (lo, hi) занятых клеток на каждую. Работа делится на куски
+     * по всем ядрам; при одинаковом seed результат одинаков.
+     */
+    public static long[] generateBoards(int count, long seed) {
+        long[] boards = new long[2 * count];
+        int chunks = (count + CHUNK - 1) / CHUNK;
+        long[] seeds = new long[chunks];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int i = 0; i < chunks; i++) seeds[i] = root.nextLong();
+
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            FleetGenerator generator = new FleetGenerator(seeds[chunk]);
+            int[] layout = new int[generator.fleet.length];
+            int end = Math.min(count, (chunk + 1) * CHUNK);
+            for (int i = chunk * CHUNK; i < end; i++) {
+                generator.fill(layout);
+                boards[2 * i] = generator.occupiedLo;
+                boards[2 * i + 1] = generator.occupiedHi;
+            }
+        });
+        return boards;
+    }
+}
@@ -1,73 +1,134 @@
 package com.battleship.common;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 
 public class Game implements Serializable {
+    // форма в потоке — как у исходного класса: её читает старый сервер
+    private static final long serialVersionUID = -6377606338926222182L;
+
     public final String playerName;
     public GameState state = GameState.PLACING_SHIPS;
     public String difficulty = "Средний";
 
-    public final boolean[][] playerField = new boolean[10][10];
-    public final boolean[][] playerHits = new boolean[10][10];
-    public final boolean[][] computerField = new boolean[10][10];
-    public final boolean[][] computerHits = new boolean[10][10];
+    // Поля и выстрелы — только битовые маски; массивы ниже заполняются лишь на время записи в поток
+    public transient Board playerBoard = new Board();
+    public transient Board playerHitsBoard = new Board();
+    public transient Board computerBoard = new Board();
+    public transient Board computerHitsBoard = new Board();
 
     public final List<Ship> playerShips = new ArrayList<>();
     public final List<Ship> computerShips = new ArrayList<>();
+    public transient ShipIndex playerShipIndex = new ShipIndex();
+    public transient ShipIndex computerShipIndex = new ShipIndex();
+
+    private boolean[][] playerField;
+    private boolean[][] playerHits;
+    private boolean[][] computerField;
+    private boolean[][] computerHits;
 
     public Game(String playerName) {
-        this.playerName = playerName;
+        this(playerName, true);
+    }
 
-        for (int i = 0; i < 10; i++) {
-            for (int j = 0; j < 10; j++) {
-                playerHits[i][j] = false;
-                computerHits[i][j] = false;
-            }
+    Game(String playerName, boolean placeComputerShips) {
+        this.playerName = playerName;
+        if (placeComputerShips) {
+            placeComputerShipsRandomly();
         }
-
-        placeComputerShipsRandomly();
     }
 
     private void placeComputerShipsRandomly() {
-        Random r = new Random();
-        int[] sizes = {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
-        for (int size : sizes) {
-            while (true) {
-                boolean vertical = r.nextBoolean();
-                int x = r.nextInt(vertical ? 10 : 11 - size);
-                int y = r.nextInt(vertical ? 11 - size : 10);
-
-                if (canPlaceShip(computerField, x, y, size, vertical)) {
-                    placeShip(computerField, computerShips, x, y, size, vertical);
-                    break;
-                }
-            }
+        for (int p : new FleetGenerator().next()) {
+            placeShip(computerBoard, computerShips, computerShipIndex,
+                    FleetGenerator.row(p), FleetGenerator.col(p), FleetGenerator.size(p), FleetGenerator.vertical(p));
         }
     }
 
-    private boolean canPlaceShip(boolean[][] field, int x, int y, int size, boolean vertical) {
-        for (int i = -1; i <= size; i++) {
-            for (int j = -1; j <= (vertical ? 1 : size); j++) {
-                int dx = vertical ? j : i;
-                int dy = vertical ? i : j;
-                int nx = x + dx, ny = y + dy;
-                if (nx >= 0 && nx < 10 && ny >= 0 && ny < 10 && field[nx][ny]) return false;
-            }
-        }
-        return true;
+    public boolean canPlacePlayerShip(int row, int col, int size, boolean vertical) {
+        return Rules.canPlace(playerBoard, row, col, size, vertical);
+    }
+
+    public Ship placePlayerShip(int row, int col, int size, boolean vertical) {
+        return placeShip(playerBoard, playerShips, playerShipIndex, row, col, size, vertical);
+    }
+
+    public void removePlayerShip(Ship ship) {
+        Rules.remove(playerBoard, playerShips, ship);
+        playerShipIndex.remove(ship);
+    }
+
+    public void clearPlayerField() {
+        playerBoard.clear();
+        playerShips.clear();
+        playerShipIndex.clear();
+    }
+
+    public boolean shootAtComputer(int row, int col) {
+        computerHitsBoard.set(row, col);
+        computerShipIndex.hit(row, col);
+        return computerBoard.get(row, col);
     }
 
-    private void placeShip(boolean[][] field, List<Ship> ships, int x, int y, int size, boolean vertical) {
-        Ship ship = new Ship(size);
-        ship.isVertical = vertical;
-        for (int i = 0; i < size; i++) {
-            int dx = vertical ? 0 : i;
-            int dy = vertical ? i : 0;
-            field[x + dx][y + dy] = true;
-            ship.cells.add(new int[]{x + dx, y + dy});
+    public boolean shootAtPlayer(int row, int col) {
+        playerHitsBoard.set(row, col);
+        playerShipIndex.hit(row, col);
+        return playerBoard.get(row, col);
+    }
+
+    public boolean allComputerShipsSunk() {
+        return Rules.allSunk(computerBoard, computerHitsBoard);
+    }
+
+    public boolean allPlayerShipsSunk() {
+        return Rules.allSunk(playerBoard, playerHitsBoard);
+    }
+
+    /** Индексы кораблей по спискам и доскам выстрелов — после чтения партии из кадра. */
+    void reindex() {
+        playerShipIndex.rebuild(playerShips, playerHitsBoard);
+        computerShipIndex.rebuild(computerShips, computerHitsBoard);
+    }
+
+    private Ship placeShip(Board board, List<Ship> ships, ShipIndex index,
+                           int row, int col, int size, boolean vertical) {
+        Ship ship = Rules.place(board, ships, row, col, size, vertical);
+        index.add(ship);
+        return ship;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        playerField = toArray(playerBoard);
+        playerHits = toArray(playerHitsBoard);
+        computerField = toArray(computerBoard);
+        computerHits = toArray(computerHitsBoard);
+        try {
+            out.defaultWriteObject();
+        } finally {
+            playerField = playerHits = computerField = computerHits = null;
         }
-        ships.add(ship);
     }
 
-}
\ No newline at end of file
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        playerBoard = Board.of(playerField);
+        playerHitsBoard = Board.of(playerHits);
+        computerBoard = Board.of(computerField);
+        computerHitsBoard = Board.of(computerHits);
+        playerField = playerHits = computerField = computerHits = null;
+        playerShipIndex = new ShipIndex();
+        computerShipIndex = new ShipIndex();
+        reindex();
+    }
+
+    private static boolean[][] toArray(Board board) {
+        boolean[][] field = new boolean[Board.SIZE][Board.SIZE];
+        for (int i = board.nextSetBit(0); i >= 0; i = board.nextSetBit(i + 1)) {
+            field[i / Board.SIZE][i % Board.SIZE] = true;
+        }
+        return field;
+    }
+}
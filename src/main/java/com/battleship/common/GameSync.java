@@ -0,0 +1,122 @@
+package com.battleship.common;
+
+/**
+ * Состояние партии глазами одного игрока: порядковый номер последней
+ * применённой дельты и четыре доски, по которым считается контрольная сумма.
+ * Сервер строит тот же вид через {@link #forPlayer(Game)}.
+ */
+public class GameSync {
+
+    public static final int MY_SHIPS = 0;
+    public static final int SHOTS_AT_ME = 1;
+    public static final int MY_SHOTS = 2;
+    public static final int MY_HITS = 3;
+    public static final int BOARDS = 4;
+
+    public enum Result { APPLIED, DUPLICATE, GAP, MISMATCH }
+
+    private final Board[] boards = new Board[BOARDS];
+    private int lastSeq;
+    private GameState state = GameState.PLAYER_TURN;
+
+    public GameSync(Board myShips) {
+        boards[MY_SHIPS] = myShips.copy();
+        for (int i = 1; i < BOARDS; i++) boards[i] = new Board();
+    }
+
+    public static GameSync forPlayer(Game game) {
+        GameSync sync = new GameSync(game.playerBoard);
+        sync.boards[SHOTS_AT_ME].or(game.playerHitsBoard);
+        sync.boards[MY_SHOTS].or(game.computerHitsBoard);
+        sync.boards[MY_HITS].or(game.computerHitsBoard);
+        sync.boards[MY_HITS].and(game.computerBoard);
+        sync.state = game.state;
+        return sync;
+    }
+
+    public Result apply(StateDelta delta) {
+        if (delta.seq <= lastSeq) return Result.DUPLICATE;
+        if (delta.seq != lastSeq + 1) return Result.GAP;
+
+        lastSeq = delta.seq;
+        switch (delta.kind) {
+            case StateDelta.SHOT -> applyShot(true, delta.row, delta.col, delta.hit);
+            case StateDelta.OPPONENT_SHOT -> applyShot(false, delta.row, delta.col, delta.hit);
+            default -> { }
+        }
+        state = delta.state;
+        return checksum() == delta.checksum ? Result.APPLIED : Result.MISMATCH;
+    }
+
+    /** Сторона сервера: применяет изменение и выпускает дельту со следующим номером. */
+    public StateDelta record(byte kind, int row, int col, boolean hit, GameState newState) {
+        return record(kind, row, col, hit, newState, -1);
+    }
+
+    /** То же с потопленным кораблём ({@link StateDelta#sunk}). */
+    public StateDelta record(byte kind, int row, int col, boolean hit, GameState newState, int sunk) {
+        StateDelta delta = new StateDelta(lastSeq + 1, kind, row, col, hit, newState, 0);
+        apply(delta);
+        return new StateDelta(delta.seq, kind, row, col, hit, newState, checksum(), sunk);
+    }
+
+    /** Выстрел без номера — от сервера, не поддерживающего дельты. */
+    public void applyShot(boolean mine, int row, int col, boolean hit) {
+        if (mine) {
+            boards[MY_SHOTS].set(row, col);
+            if (hit) boards[MY_HITS].set(row, col);
+        } else {
+            boards[SHOTS_AT_ME].set(row, col);
+        }
+    }
+
+    public void applySnapshot(SyncSnapshot snapshot) {
+        for (int i = 0; i < BOARDS; i++) {
+            if (snapshot.boards[i] != null) boards[i] = snapshot.boards[i].copy();
+        }
+        lastSeq = Math.max(lastSeq, snapshot.seq);
+        state = snapshot.state;
+    }
+
+    /** Полезная нагрузка RESYNC_REQUEST: последний номер и суммы досок. */
+    public int[] resyncRequest() {
+        int[] request = new int[1 + BOARDS];
+        request[0] = lastSeq;
+        for (int i = 0; i < BOARDS; i++) request[1 + i] = checksum(boards[i]);
+        return request;
+    }
+
+    /** Ответ сервера на запрос: доски, суммы которых не совпали. */
+    public SyncSnapshot snapshotFor(int[] request) {
+        Board[] diff = new Board[BOARDS];
+        for (int i = 0; i < BOARDS; i++) {
+            if (checksum(boards[i]) != request[1 + i]) diff[i] = boards[i].copy();
+        }
+        return new SyncSnapshot(lastSeq, state, diff);
+    }
+
+    public int checksum() {
+        int h = 1;
+        for (Board board : boards) h = 31 * h + checksum(board);
+        return h;
+    }
+
+    public static int checksum(Board board) {
+        long h = board.lo * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(board.hi * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public Board board(int index) {
+        return boards[index];
+    }
+
+    public int lastSeq() {
+        return lastSeq;
+    }
+
+    public GameState state() {
+        return state;
+    }
+}
@@ -0,0 +1,30 @@
+package com.battleship.common;
+
+import java.io.Serializable;
+
+/**
+ * Партия для наблюдателя (SPECTATE_UPDATE): поля глазами игрока в порядке
+ * {@link GameSync}. {@code boards == null} — партия закончилась или игрок
+ * ушёл, плитку пора убрать.
+ */
+public class LiveGame implements Serializable {
+    public final int id;
+    public final String player;
+    public final GameState state;
+    public final Board[] boards;
+
+    public LiveGame(int id, String player, GameState state, Board[] boards) {
+        this.id = id;
+        this.player = player;
+        this.state = state;
+        this.boards = boards;
+    }
+
+    public static LiveGame ended(int id) {
+        return new LiveGame(id, "", GameState.COMPUTER_WON, null);
+    }
+
+    public boolean isEnded() {
+        return boards == null;
+    }
+}
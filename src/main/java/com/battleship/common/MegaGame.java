@@ -0,0 +1,219 @@
+package com.battleship.common;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Мега-бой против компьютера: поле до 1000x1000 и произвольный флот.
+ * Корабль не хранится отдельно: корабли не касаются друг друга, поэтому
+ * непрерывная занятая полоса через клетку и есть корабль. Поиск корабля,
+ * расстановка и выстрел стоят O(длины корабля) при любом размере поля.
+ */
+public class MegaGame {
+
+    public static final int MIN_SIZE = Board.SIZE;
+    public static final int MAX_SIZE = 1000;
+
+    public static final int MISS = 0;
+    public static final int HIT = 1;
+    public static final int SUNK = 2;
+    public static final int REPEAT = -1;
+
+    // случайных попыток на корабль, прежде чем признать флот неподходящим для поля
+    private static final int PLACE_ATTEMPTS = 1000;
+
+    /** Поле одной стороны: корабли, выстрелы по нему и клетки потопленных кораблей. */
+    public static final class Side {
+        public final SparseBoard ships;
+        public final SparseBoard shots;
+        public final SparseBoard sunk;
+        public int shipsLeft;
+
+        Side(int size) {
+            ships = new SparseBoard(size);
+            shots = new SparseBoard(size);
+            sunk = new SparseBoard(size);
+        }
+    }
+
+    public final int size;
+    public final int[] fleet;
+    public final Side player;
+    public final Side computer;
+    public boolean playerTurn = true;
+
+    private final Random random;
+    // клетки-кандидаты вокруг раненого корабля игрока
+    private final ArrayDeque<Integer> targets = new ArrayDeque<>();
+
+    public MegaGame(int size, int[] fleet, long seed) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Размер поля от " + MIN_SIZE + " до " + MAX_SIZE + ": " + size);
+        }
+        this.size = size;
+        this.fleet = fleet.clone();
+        Arrays.sort(this.fleet);
+        this.random = new Random(seed);
+        this.player = new Side(size);
+        this.computer = new Side(size);
+        placeFleet(player);
+        placeFleet(computer);
+    }
+
+    /** Классический флот на каждые 10x10 клеток поля. */
+    public static int[] defaultFleet(int size) {
+        int copies = Math.max(1, (size / Board.SIZE) * (size / Board.SIZE));
+        int[] fleet = new int[copies * Rules.FLEET.length];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = Rules.FLEET[i % Rules.FLEET.length];
+        }
+        return fleet;
+    }
+
+    /** Флот вида «4*1,3*2,2*3,1*4» — длина и число кораблей; пустая строка — флот по умолчанию. */
+    public static int[] parseFleet(String spec, int size) {
+        if (spec == null || spec.isBlank()) return defaultFleet(size);
+        long[] counts = new long[size + 1];
+        long total = 0;
+        long cells = 0;
+        long area = (long) size * size;
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("\\*");
+            int length = Integer.parseInt(pair[0].trim());
+            int count = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+            if (length < 1 || length > size || count < 0) {
+                throw new IllegalArgumentException("Неверный корабль: " + part.trim());
+            }
+            counts[length] += count;
+            total += count;
+            cells += (long) length * count;
+            if (cells > area) {
+                throw new IllegalArgumentException("Флот не помещается на поле " + size + "x" + size);
+            }
+        }
+        if (total == 0) throw new IllegalArgumentException("Флот пуст");
+        int[] fleet = new int[(int) total];
+        for (int length = 1, i = 0; length <= size; length++) {
+            for (int n = 0; n < counts[length]; n++) fleet[i++] = length;
+        }
+        return fleet;
+    }
+
+    public boolean isOver() {
+        return player.shipsLeft == 0 || computer.shipsLeft == 0;
+    }
+
+    public boolean playerWon() {
+        return computer.shipsLeft == 0;
+    }
+
+    /** Выстрел игрока; после промаха ход переходит к компьютеру. */
+    public int playerShot(int row, int col) {
+        if (!playerTurn || isOver()) return REPEAT;
+        int result = shoot(computer, row, col);
+        if (result == MISS) playerTurn = false;
+        return result;
+    }
+
+    /** Один выстрел компьютера; клетка выстрела, -1 — ход не его. */
+    public int computerShot() {
+        if (playerTurn || isOver()) return -1;
+        int cell = nextTarget();
+        int result = shoot(player, cell / size, cell % size);
+        if (result == MISS) {
+            playerTurn = true;
+        } else if (result == SUNK) {
+            targets.clear();
+        } else {
+            int row = cell / size, col = cell % size;
+            addTarget(row - 1, col);
+            addTarget(row + 1, col);
+            addTarget(row, col - 1);
+            addTarget(row, col + 1);
+        }
+        return cell;
+    }
+
+    private int nextTarget() {
+        while (!targets.isEmpty()) {
+            int cell = targets.pollLast();
+            if (!player.shots.get(cell)) return cell;
+        }
+        return player.shots.nextClearBit(random.nextInt(size * size));
+    }
+
+    private void addTarget(int row, int col) {
+        if (player.shots.inside(row, col) && !player.shots.get(row, col)) {
+            targets.add(player.shots.index(row, col));
+        }
+    }
+
+    /** Выстрел по стороне: MISS, HIT, SUNK или REPEAT для уже обстрелянной клетки. */
+    public static int shoot(Side side, int row, int col) {
+        if (!side.shots.inside(row, col) || side.shots.get(row, col)) return REPEAT;
+        side.shots.set(row, col);
+        if (!side.ships.get(row, col)) return MISS;
+
+        int[] ship = shipAt(side.ships, row, col);
+        int dr = ship[3], dc = 1 - ship[3];
+        for (int i = 0; i < ship[2]; i++) {
+            if (!side.shots.get(ship[0] + dr * i, ship[1] + dc * i)) return HIT;
+        }
+        // потоплен: клетки корабля отмечаются, вокруг него стрелять больше незачем
+        for (int r = ship[0] - 1; r <= ship[0] + dr * (ship[2] - 1) + 1; r++) {
+            for (int c = ship[1] - 1; c <= ship[1] + dc * (ship[2] - 1) + 1; c++) {
+                if (!side.shots.inside(r, c)) continue;
+                side.shots.set(r, c);
+                if (side.ships.get(r, c)) side.sunk.set(r, c);
+            }
+        }
+        side.shipsLeft--;
+        return SUNK;
+    }
+
+    /** Корабль через клетку: {нос row, нос col, длина, 1 — вертикальный}; null — вода. */
+    public static int[] shipAt(SparseBoard ships, int row, int col) {
+        if (!ships.get(row, col)) return null;
+        boolean vertical = ships.get(row - 1, col) || ships.get(row + 1, col);
+        int dr = vertical ? 1 : 0, dc = vertical ? 0 : 1;
+        int r = row, c = col;
+        while (ships.get(r - dr, c - dc)) {
+            r -= dr;
+            c -= dc;
+        }
+        int length = 1;
+        while (ships.get(r + dr * length, c + dc * length)) length++;
+        return new int[]{r, c, length, vertical ? 1 : 0};
+    }
+
+    private void placeFleet(Side side) {
+        // длинные первыми: им труднее найти место
+        for (int i = fleet.length - 1; i >= 0; i--) {
+            int length = fleet[i];
+            boolean placed = false;
+            for (int attempt = 0; attempt < PLACE_ATTEMPTS && !placed; attempt++) {
+                boolean vertical = length > 1 && random.nextBoolean();
+                int row = random.nextInt(vertical ? size - length + 1 : size);
+                int col = random.nextInt(vertical ? size : size - length + 1);
+                placed = place(side.ships, row, col, length, vertical);
+            }
+            if (!placed) throw new IllegalArgumentException("Флот не помещается на поле " + size + "x" + size);
+            side.shipsLeft++;
+        }
+    }
+
+    /** Ставит корабль, если он в поле и не касается других. */
+    public static boolean place(SparseBoard ships, int row, int col, int length, boolean vertical) {
+        int dr = vertical ? 1 : 0, dc = vertical ? 0 : 1;
+        int endRow = row + dr * (length - 1), endCol = col + dc * (length - 1);
+        if (!ships.inside(row, col) || !ships.inside(endRow, endCol)) return false;
+        for (int r = row - 1; r <= endRow + 1; r++) {
+            for (int c = col - 1; c <= endCol + 1; c++) {
+                if (ships.get(r, c)) return false;
+            }
+        }
+        for (int i = 0; i < length; i++) ships.set(row + dr * i, col + dc * i);
+        return true;
+    }
+}
@@ -0,0 +1,380 @@
+package com.battleship.common;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Двоичный формат сообщений вместо Java-сериализации.
+ * Кадр: [int длина][byte тип][byte вид полезной нагрузки][данные].
+ */
+public final class MessageCodec {
+
+    public static final int MAGIC = 0x42534850; // "BSHP"
+    // 2 — сервер может слать STATE_DELTA/RESYNC вместо голых int[]
+    // 3 — после входа сервер выдаёт SESSION_TOKEN, по нему сессию можно продолжить (RESUME)
+    // 4 — выстрел, потопивший корабль, сообщает его позицию (дельта P_DELTA_SUNK)
+    // 5 — наблюдение за партиями: SPECTATE и SPECTATE_UPDATE (P_LIVE)
+    // 6 — PING: клиент шлёт при простое, сервер отвечает тем же
+    public static final int VERSION = 6;
+    public static final int MAX_FRAME = 1 << 20;
+
+    private static final byte P_NONE = 0;
+    private static final byte P_STRING = 1;
+    private static final byte P_STRINGS = 2;
+    private static final byte P_BYTES = 3;
+    private static final byte P_INTS = 4;
+    private static final byte P_BOOLEAN = 5;
+    private static final byte P_GAME = 6;
+    private static final byte P_DELTA = 7;
+    private static final byte P_SNAPSHOT = 8;
+    private static final byte P_SAVES = 9;
+    private static final byte P_DELTA_SUNK = 10;
+    private static final byte P_LIVE = 11;
+    private static final byte P_SNAPSHOT_SUNK = 12;
+
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final GameState[] STATES = GameState.values();
+
+    private MessageCodec() {
+    }
+
+    public static void writeFrame(DataOutputStream out, Message msg) throws IOException {
+        byte[] body = encode(msg);
+        out.writeInt(body.length);
+        out.write(body);
+    }
+
+    public static Message readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > MAX_FRAME) {
+            throw new StreamCorruptedException("Неверная длина кадра: " + length);
+        }
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return decode(body);
+    }
+
+    public static byte[] encode(Message msg) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        encode(msg, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /** Тело кадра без длины — прямо в поток, без промежуточного массива. */
+    public static void encode(Message msg, DataOutputStream out) throws IOException {
+        out.writeByte(msg.getType().ordinal());
+        writePayload(out, msg.getPayload());
+    }
+
+    public static Message decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int type = in.readUnsignedByte();
+        if (type >= TYPES.length) {
+            throw new StreamCorruptedException("Неизвестный тип сообщения: " + type);
+        }
+        return new Message(TYPES[type], readPayload(in));
+    }
+
+    private static void writePayload(DataOutputStream out, Object payload) throws IOException {
+        if (payload == null) {
+            out.writeByte(P_NONE);
+        } else if (payload instanceof String s) {
+            out.writeByte(P_STRING);
+            out.writeUTF(s);
+        } else if (payload instanceof String[] strings) {
+            out.writeByte(P_STRINGS);
+            out.writeByte(count(strings.length, 0xFF, "строк"));
+            for (String s : strings) out.writeUTF(s);
+        } else if (payload instanceof int[] ints && fitsInBytes(ints)) {
+            out.writeByte(P_BYTES);
+            out.writeByte(ints.length);
+            for (int v : ints) out.writeByte(v);
+        } else if (payload instanceof int[] ints) {
+            out.writeByte(P_INTS);
+            out.writeShort(count(ints.length, 0xFFFF, "чисел"));
+            for (int v : ints) out.writeInt(v);
+        } else if (payload instanceof Boolean b) {
+            out.writeByte(P_BOOLEAN);
+            out.writeBoolean(b);
+        } else if (payload instanceof Game game) {
+            out.writeByte(P_GAME);
+            writeGame(out, game);
+        } else if (payload instanceof StateDelta delta && delta.sunk >= 0) {
+            out.writeByte(P_DELTA_SUNK);
+            writeDelta(out, delta);
+            out.writeShort(delta.sunk);
+        } else if (payload instanceof StateDelta delta) {
+            out.writeByte(P_DELTA);
+            writeDelta(out, delta);
+        } else if (payload instanceof SyncSnapshot snapshot && snapshot.sunk != null) {
+            out.writeByte(P_SNAPSHOT_SUNK);
+            writeSnapshot(out, snapshot);
+            out.writeByte(count(snapshot.sunk.length, Rules.FLEET.length, "кораблей"));
+            for (int placement : snapshot.sunk) out.writeShort(placement);
+        } else if (payload instanceof SyncSnapshot snapshot) {
+            out.writeByte(P_SNAPSHOT);
+            writeSnapshot(out, snapshot);
+        } else if (payload instanceof SavedGame[] saves) {
+            out.writeByte(P_SAVES);
+            out.writeInt(saves.length);
+            for (SavedGame save : saves) writeSave(out, save);
+        } else if (payload instanceof LiveGame[] games) {
+            out.writeByte(P_LIVE);
+            out.writeShort(count(games.length, 0xFFFF, "партий"));
+            for (LiveGame game : games) writeLive(out, game);
+        } else {
+            throw new NotSerializableException(payload.getClass().getName());
+        }
+    }
+
+    private static Object readPayload(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        return switch (kind) {
+            case P_NONE -> null;
+            case P_STRING -> in.readUTF();
+            case P_STRINGS -> {
+                String[] strings = new String[in.readUnsignedByte()];
+                for (int i = 0; i < strings.length; i++) strings[i] = in.readUTF();
+                yield strings;
+            }
+            case P_BYTES -> {
+                int[] ints = new int[in.readUnsignedByte()];
+                for (int i = 0; i < ints.length; i++) ints[i] = in.readUnsignedByte();
+                yield ints;
+            }
+            case P_INTS -> {
+                int[] ints = new int[in.readUnsignedShort()];
+                for (int i = 0; i < ints.length; i++) ints[i] = in.readInt();
+                yield ints;
+            }
+            case P_BOOLEAN -> in.readBoolean();
+            case P_GAME -> readGame(in);
+            case P_DELTA -> readDelta(in);
+            case P_DELTA_SUNK -> {
+                StateDelta delta = readDelta(in);
+                yield new StateDelta(delta.seq, delta.kind, delta.row, delta.col, delta.hit, delta.state,
+                        delta.checksum, placement(in.readUnsignedShort()));
+            }
+            case P_SNAPSHOT -> readSnapshot(in);
+            case P_SNAPSHOT_SUNK -> {
+                SyncSnapshot snapshot = readSnapshot(in);
+                int[] sunk = new int[count(in.readUnsignedByte(), Rules.FLEET.length, "кораблей")];
+                for (int i = 0; i < sunk.length; i++) sunk[i] = placement(in.readUnsignedShort());
+                yield new SyncSnapshot(snapshot.seq, snapshot.state, snapshot.boards, sunk);
+            }
+            case P_SAVES -> {
+                int count = in.readInt();
+                if (count < 0 || count > MAX_FRAME / 16) {
+                    throw new StreamCorruptedException("Неверное число сохранений: " + count);
+                }
+                SavedGame[] saves = new SavedGame[count];
+                for (int i = 0; i < count; i++) saves[i] = readSave(in);
+                yield saves;
+            }
+            case P_LIVE -> {
+                LiveGame[] games = new LiveGame[in.readUnsignedShort()];
+                for (int i = 0; i < games.length; i++) games[i] = readLive(in);
+                yield games;
+            }
+            default -> throw new StreamCorruptedException("Неизвестный вид данных: " + kind);
+        };
+    }
+
+    /** Длина, записываемая в поле на {@code max}: без проверки лишнее молча обрезалось бы и ломало кадр. */
+    private static int count(int count, int max, String what) throws IOException {
+        if (count > max) {
+            throw new IOException("Слишком много " + what + " для одного кадра: " + count);
+        }
+        return count;
+    }
+
+    private static GameState state(int ordinal) throws IOException {
+        if (ordinal >= STATES.length) {
+            throw new StreamCorruptedException("Неизвестное состояние партии: " + ordinal);
+        }
+        return STATES[ordinal];
+    }
+
+    private static int cell(int cell) throws IOException {
+        if (cell >= Board.CELLS) {
+            throw new StreamCorruptedException("Клетка вне поля: " + cell);
+        }
+        return cell;
+    }
+
+    /** Упакованная позиция корабля, целиком лежащая на поле. */
+    private static int placement(int placement) throws IOException {
+        int size = FleetGenerator.size(placement);
+        if (size < 1 || size > Rules.MAX_SHIP || cell(placement & 0x7F) < 0
+                || Rules.shipMask(FleetGenerator.row(placement), FleetGenerator.col(placement), size,
+                        FleetGenerator.vertical(placement)) == null) {
+            throw new StreamCorruptedException("Неверная позиция корабля: " + placement);
+        }
+        return placement;
+    }
+
+    private static boolean fitsInBytes(int[] ints) {
+        if (ints.length > 255) return false;
+        for (int v : ints) {
+            if (v < 0 || v > 255) return false;
+        }
+        return true;
+    }
+
+    private static void writeGame(DataOutputStream out, Game game) throws IOException {
+        out.writeUTF(game.playerName);
+        out.writeUTF(game.difficulty != null ? game.difficulty : "");
+        out.writeByte(game.state.ordinal());
+        writeBoard(out, game.playerBoard);
+        writeBoard(out, game.playerHitsBoard);
+        writeBoard(out, game.computerBoard);
+        writeBoard(out, game.computerHitsBoard);
+        writeShips(out, game.playerShips);
+        writeShips(out, game.computerShips);
+    }
+
+    private static Game readGame(DataInputStream in) throws IOException {
+        Game game = new Game(in.readUTF(), false);
+        game.difficulty = in.readUTF();
+        game.state = state(in.readUnsignedByte());
+        game.playerBoard = readBoard(in);
+        game.playerHitsBoard = readBoard(in);
+        game.computerBoard = readBoard(in);
+        game.computerHitsBoard = readBoard(in);
+        readShips(in, game.playerShips);
+        readShips(in, game.computerShips);
+        game.reindex();
+        return game;
+    }
+
+    private static void writeDelta(DataOutputStream out, StateDelta delta) throws IOException {
+        out.writeInt(delta.seq);
+        out.writeByte(delta.kind);
+        out.writeByte(Board.index(delta.row, delta.col));
+        out.writeByte(delta.state.ordinal() << 1 | (delta.hit ? 1 : 0));
+        out.writeInt(delta.checksum);
+    }
+
+    private static StateDelta readDelta(DataInputStream in) throws IOException {
+        int seq = in.readInt();
+        byte kind = in.readByte();
+        int cell = cell(in.readUnsignedByte());
+        int flags = in.readUnsignedByte();
+        return new StateDelta(seq, kind, cell / Board.SIZE, cell % Board.SIZE,
+                (flags & 1) != 0, state(flags >> 1), in.readInt());
+    }
+
+    private static void writeSnapshot(DataOutputStream out, SyncSnapshot snapshot) throws IOException {
+        out.writeInt(snapshot.seq);
+        out.writeByte(snapshot.state.ordinal());
+        int present = 0;
+        for (int i = 0; i < snapshot.boards.length; i++) {
+            if (snapshot.boards[i] != null) present |= 1 << i;
+        }
+        // наличие полей — битовая маска в одном байте
+        out.writeByte(count(snapshot.boards.length, Byte.SIZE, "полей"));
+        out.writeByte(present);
+        for (Board board : snapshot.boards) {
+            if (board != null) writeBoard(out, board);
+        }
+    }
+
+    private static SyncSnapshot readSnapshot(DataInputStream in) throws IOException {
+        int seq = in.readInt();
+        GameState state = state(in.readUnsignedByte());
+        int count = in.readUnsignedByte();
+        if (count > Byte.SIZE) {
+            throw new StreamCorruptedException("Неверное число полей: " + count);
+        }
+        Board[] boards = new Board[count];
+        int present = in.readUnsignedByte();
+        for (int i = 0; i < boards.length; i++) {
+            if ((present & 1 << i) != 0) boards[i] = readBoard(in);
+        }
+        return new SyncSnapshot(seq, state, boards);
+    }
+
+    private static void writeLive(DataOutputStream out, LiveGame game) throws IOException {
+        out.writeInt(game.id);
+        if (game.isEnded()) {
+            out.writeByte(0xFF);
+            return;
+        }
+        if (game.boards.length != GameSync.BOARDS) {
+            throw new IOException("Партия для наблюдателя без полей: " + game.boards.length);
+        }
+        out.writeByte(game.state.ordinal());
+        out.writeUTF(game.player);
+        for (Board board : game.boards) writeBoard(out, board);
+    }
+
+    private static LiveGame readLive(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        int state = in.readUnsignedByte();
+        if (state == 0xFF) return LiveGame.ended(id);
+        String player = in.readUTF();
+        Board[] boards = new Board[GameSync.BOARDS];
+        for (int i = 0; i < boards.length; i++) boards[i] = readBoard(in);
+        return new LiveGame(id, player, state(state), boards);
+    }
+
+    // общий с индексом сохранений формат строки списка
+    public static void writeSave(DataOutput out, SavedGame save) throws IOException {
+        out.writeInt(save.id);
+        out.writeUTF(save.owner);
+        out.writeUTF(save.difficulty);
+        out.writeLong(save.updatedAt);
+        out.writeShort(save.shots);
+        out.writeByte(save.hits);
+        out.writeByte(save.losses);
+    }
+
+    public static SavedGame readSave(DataInput in) throws IOException {
+        return new SavedGame(in.readInt(), in.readUTF(), in.readUTF(), in.readLong(),
+                in.readUnsignedShort(), in.readUnsignedByte(), in.readUnsignedByte());
+    }
+
+    private static void writeBoard(DataOutputStream out, Board board) throws IOException {
+        out.writeLong(board.lo);
+        out.writeLong(board.hi);
+    }
+
+    private static Board readBoard(DataInputStream in) throws IOException {
+        return new Board(in.readLong(), in.readLong());
+    }
+
+    private static void writeShips(DataOutputStream out, List<Ship> ships) throws IOException {
+        out.writeByte(count(ships.size(), 0xFF, "кораблей"));
+        for (Ship ship : ships) {
+            if (ship.cells.isEmpty() || ship.size < 1 || ship.size > Rules.MAX_SHIP) {
+                throw new IOException("Корабль не на поле: размер " + ship.size + ", клеток " + ship.cells.size());
+            }
+            int[] first = ship.cells.get(0);
+            out.writeByte(ship.size);
+            out.writeByte(ship.isVertical ? 1 : 0);
+            out.writeByte(Board.index(first[0], first[1]));
+            out.writeByte(ship.hits);
+        }
+    }
+
+    private static void readShips(DataInputStream in, List<Ship> ships) throws IOException {
+        int count = in.readUnsignedByte();
+        for (int i = 0; i < count; i++) {
+            Ship ship = new Ship(in.readUnsignedByte());
+            ship.isVertical = in.readByte() != 0;
+            int first = cell(in.readUnsignedByte());
+            ship.hits = in.readUnsignedByte();
+            int row = first / Board.SIZE, col = first % Board.SIZE;
+            int end = (ship.isVertical ? row : col) + ship.size;
+            if (ship.size == 0 || ship.size > Rules.MAX_SHIP || end > Board.SIZE || ship.hits > ship.size) {
+                throw new StreamCorruptedException("Корабль вне поля: размер " + ship.size + " с клетки " + first);
+            }
+            for (int j = 0; j < ship.size; j++) {
+                ship.cells.add(ship.isVertical ? new int[]{row + j, col} : new int[]{row, col + j});
+            }
+            ships.add(ship);
+        }
+    }
+}
@@ -18,5 +18,15 @@ public enum MessageType {
     OPPONENT_SHOT,
     GAME_OVER,
     LOBBY_ENTER,
-    ERROR
+    ERROR,
+    STATE_DELTA,
+    RESYNC_REQUEST,
+    RESYNC,
+    SESSION_TOKEN,
+    RESUME,
+    RESUME_OK,
+    RESUME_FAIL,
+    SPECTATE,
+    SPECTATE_UPDATE,
+    PING
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.battleship.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Общие правила расстановки и боя для клиента и модели игры.
+ * Координаты везде (row, col); вертикальный корабль растёт вниз по row.
+ */
+public final class Rules {
+
+    public static final int[] FLEET = {4, 3, 3, 2, 2, 2, 1, 1, 1, 1};
+    public static final int MAX_SHIP = 4;
+
+    // [size][vertical ? 1 : 0][cell]; null — корабль не помещается в поле
+    private static final Board[][][] SHIP_MASKS = new Board[MAX_SHIP + 1][2][Board.CELLS];
+    private static final Board[][][] HALO_MASKS = new Board[MAX_SHIP + 1][2][Board.CELLS];
+
+    static {
+        for (int size = 1; size <= MAX_SHIP; size++) {
+            for (int v = 0; v < 2; v++) {
+                for (int row = 0; row < Board.SIZE; row++) {
+                    for (int col = 0; col < Board.SIZE; col++) {
+                        int endRow = v == 1 ? row + size - 1 : row;
+                        int endCol = v == 1 ? col : col + size - 1;
+                        if (endRow >= Board.SIZE || endCol >= Board.SIZE) continue;
+
+                        Board ship = new Board();
+                        Board halo = new Board();
+                        for (int r = row - 1; r <= endRow + 1; r++) {
+                            for (int c = col - 1; c <= endCol + 1; c++) {
+                                if (!Board.inside(r, c)) continue;
+                                halo.set(r, c);
+                                if (r >= row && r <= endRow && c >= col && c <= endCol) ship.set(r, c);
+                            }
+                        }
+                        SHIP_MASKS[size][v][Board.index(row, col)] = ship;
+                        HALO_MASKS[size][v][Board.index(row, col)] = halo;
+                    }
+                }
+            }
+        }
+    }
+
+    private Rules() {
+    }
+
+    static Board shipMaskRef(int row, int col, int size, boolean vertical) {
+        if (size < 1 || size > MAX_SHIP || !Board.inside(row, col)) return null;
+        return SHIP_MASKS[size][vertical ? 1 : 0][Board.index(row, col)];
+    }
+
+    static Board haloMaskRef(int row, int col, int size, boolean vertical) {
+        if (size < 1 || size > MAX_SHIP || !Board.inside(row, col)) return null;
+        return HALO_MASKS[size][vertical ? 1 : 0][Board.index(row, col)];
+    }
+
+    /** Клетки корабля, либо null, если корабль выходит за поле. */
+    public static Board shipMask(int row, int col, int size, boolean vertical) {
+        Board mask = shipMaskRef(row, col, size, vertical);
+        return mask != null ? mask.copy() : null;
+    }
+
+    /** Клетки корабля вместе с соседними, либо null, если корабль выходит за поле. */
+    public static Board haloMask(int row, int col, int size, boolean vertical) {
+        Board mask = haloMaskRef(row, col, size, vertical);
+        return mask != null ? mask.copy() : null;
+    }
+
+    public static Board shipMask(Ship ship) {
+        int[] first = ship.cells.get(0);
+        return shipMask(first[0], first[1], ship.size, ship.isVertical);
+    }
+
+    public static boolean canPlace(Board occupied, int row, int col, int size, boolean vertical) {
+        Board halo = haloMaskRef(row, col, size, vertical);
+        return halo != null && !occupied.intersects(halo);
+    }
+
+    public static Ship place(Board occupied, List<Ship> ships, int row, int col, int size, boolean vertical) {
+        Ship ship = new Ship(size);
+        ship.isVertical = vertical;
+        for (int i = 0; i < size; i++) {
+            int r = vertical ? row + i : row;
+            int c = vertical ? col : col + i;
+            ship.cells.add(new int[]{r, c});
+        }
+        occupied.or(shipMaskRef(row, col, size, vertical));
+        ships.add(ship);
+        return ship;
+    }
+
+    public static void remove(Board occupied, List<Ship> ships, Ship ship) {
+        occupied.andNot(shipMaskRef(ship.cells.get(0)[0], ship.cells.get(0)[1], ship.size, ship.isVertical));
+        ships.removeIf(s -> s == ship);
+    }
+
+    public static boolean isSunk(Ship ship, Board hits) {
+        int[] first = ship.cells.get(0);
+        return hits.containsAll(shipMaskRef(first[0], first[1], ship.size, ship.isVertical));
+    }
+
+    public static boolean allSunk(Board ships, Board hits) {
+        return hits.containsAll(ships);
+    }
+
+    /**
+     * Полезная нагрузка SHOT_RESULT/OPPONENT_SHOT: {row, col, hit}; у выстрела,
+     * потопившего корабль, ещё {носRow, носCol, size, vertical}.
+     */
+    public static int[] shotPayload(int row, int col, boolean hit, Ship sunk) {
+        if (sunk == null) return new int[]{row, col, hit ? 1 : 0};
+        int[] first = sunk.cells.get(0);
+        return new int[]{row, col, 1, first[0], first[1], sunk.size, sunk.isVertical ? 1 : 0};
+    }
+
+    /** Потопленный корабль из полезной нагрузки выстрела, либо null. */
+    public static Ship sunkShip(int[] payload) {
+        if (payload.length < 7) return null;
+        return place(new Board(), new ArrayList<>(), payload[3], payload[4], payload[5], payload[6] == 1);
+    }
+
+    /** Потопленный корабль из дельты; {@code placement} упакован как в {@link FleetGenerator}, -1 — нет. */
+    public static Ship sunkShip(int placement) {
+        if (placement < 0) return null;
+        return place(new Board(), new ArrayList<>(), FleetGenerator.row(placement), FleetGenerator.col(placement),
+                FleetGenerator.size(placement), FleetGenerator.vertical(placement));
+    }
+
+    public static int placement(Ship ship) {
+        int[] first = ship.cells.get(0);
+        return Board.index(first[0], first[1]) | (ship.isVertical ? 0x80 : 0) | ship.size << 8;
+    }
+
+    public static Ship shipAt(List<Ship> ships, int row, int col) {
+        int index = Board.index(row, col);
+        for (Ship ship : ships) {
+            int[] first = ship.cells.get(0);
+            if (shipMaskRef(first[0], first[1], ship.size, ship.isVertical).get(index)) return ship;
+        }
+        return null;
+    }
+}
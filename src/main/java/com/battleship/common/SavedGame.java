@@ -0,0 +1,25 @@
+package com.battleship.common;
+
+import java.io.Serializable;
+
+/** Строка списка сохранённых партий: всё, что нужно лобби, без самой партии. */
+public class SavedGame implements Serializable {
+    public final int id;
+    public final String owner;
+    public final String difficulty;
+    public final long updatedAt;
+    /** Выстрелов игрока, его попаданий и попаданий по нему. */
+    public final int shots;
+    public final int hits;
+    public final int losses;
+
+    public SavedGame(int id, String owner, String difficulty, long updatedAt, int shots, int hits, int losses) {
+        this.id = id;
+        this.owner = owner;
+        this.difficulty = difficulty;
+        this.updatedAt = updatedAt;
+        this.shots = shots;
+        this.hits = hits;
+        this.losses = losses;
+    }
+}
@@ -0,0 +1,85 @@
+package com.battleship.common;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Какой корабль стоит в клетке: номер корабля + 1 в каждой клетке поля,
+ * 0 — вода. Поиск корабля по клетке — одно чтение массива; попадания
+ * считаются в {@link Ship#hits}, по клетке не больше одного раза.
+ */
+public class ShipIndex implements Serializable {
+
+    private final byte[] cells = new byte[Board.CELLS];
+    private Ship[] ships = new Ship[Rules.FLEET.length];
+    private final Board hit = new Board();
+
+    public void add(Ship ship) {
+        int slot = 0;
+        while (slot < ships.length && ships[slot] != null) slot++;
+        if (slot == ships.length) ships = Arrays.copyOf(ships, ships.length * 2);
+        ships[slot] = ship;
+        for (int[] cell : ship.cells) {
+            cells[Board.index(cell[0], cell[1])] = (byte) (slot + 1);
+        }
+    }
+
+    public void remove(Ship ship) {
+        int[] first = ship.cells.get(0);
+        int slot = cells[Board.index(first[0], first[1])] - 1;
+        if (slot < 0 || ships[slot] != ship) return;
+        ships[slot] = null;
+        for (int[] cell : ship.cells) {
+            int index = Board.index(cell[0], cell[1]);
+            cells[index] = 0;
+            hit.clear(index);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(cells, (byte) 0);
+        Arrays.fill(ships, null);
+        hit.clear();
+    }
+
+    /** Заново по списку кораблей и уже сделанным выстрелам — после чтения партии из кадра. */
+    public void rebuild(List<Ship> list, Board shots) {
+        clear();
+        for (Ship ship : list) {
+            ship.hits = 0;
+            add(ship);
+        }
+        for (int i = shots.nextSetBit(0); i >= 0; i = shots.nextSetBit(i + 1)) {
+            hit(i);
+        }
+    }
+
+    public Ship at(int row, int col) {
+        return at(Board.index(row, col));
+    }
+
+    public Ship at(int index) {
+        int slot = cells[index];
+        return slot == 0 ? null : ships[slot - 1];
+    }
+
+    /** Выстрел по клетке; корабль, если именно этот выстрел его потопил, иначе null. */
+    public Ship hit(int row, int col) {
+        return hit(Board.index(row, col));
+    }
+
+    private Ship hit(int index) {
+        Ship ship = at(index);
+        if (ship == null || hit.get(index)) return null;
+        hit.set(index);
+        ship.hits++;
+        return ship.isSunk() ? ship : null;
+    }
+
+    /** Потопленный корабль в клетке или null. */
+    public Ship sunkAt(int row, int col) {
+        Ship ship = at(row, col);
+        return ship != null && ship.isSunk() ? ship : null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.battleship.common;
+
+import java.util.Arrays;
+
+/**
+ * Битовое поле произвольного размера для мега-боя: клетка (row, col) — бит
+ * row * size + col. Биты лежат страницами по 4096, страница заводится при
+ * первой установленной в ней клетке, так что почти пустое поле 1000x1000
+ * занимает несколько килобайт, а не 125.
+ */
+public class SparseBoard {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_WORDS = (1 << PAGE_BITS) / 64;
+
+    private final int size;
+    private final long[][] pages;
+    private int count;
+
+    public SparseBoard(int size) {
+        this.size = size;
+        this.pages = new long[((size * size - 1) >> PAGE_BITS) + 1][];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cells() {
+        return size * size;
+    }
+
+    public int index(int row, int col) {
+        return row * size + col;
+    }
+
+    public boolean inside(int row, int col) {
+        return row >= 0 && row < size && col >= 0 && col < size;
+    }
+
+    public boolean get(int row, int col) {
+        return inside(row, col) && get(index(row, col));
+    }
+
+    public boolean get(int index) {
+        long[] page = pages[index >> PAGE_BITS];
+        return page != null && (page[(index >> 6) & (PAGE_WORDS - 1)] & (1L << index)) != 0;
+    }
+
+    public void set(int row, int col) {
+        set(index(row, col));
+    }
+
+    public void set(int index) {
+        long[] page = pages[index >> PAGE_BITS];
+        if (page == null) page = pages[index >> PAGE_BITS] = new long[PAGE_WORDS];
+        int word = (index >> 6) & (PAGE_WORDS - 1);
+        long bit = 1L << index;
+        if ((page[word] & bit) == 0) {
+            page[word] |= bit;
+            count++;
+        }
+    }
+
+    public void clear(int index) {
+        long[] page = pages[index >> PAGE_BITS];
+        if (page == null) return;
+        int word = (index >> 6) & (PAGE_WORDS - 1);
+        long bit = 1L << index;
+        if ((page[word] & bit) != 0) {
+            page[word] &= ~bit;
+            count--;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(pages, null);
+        count = 0;
+    }
+
+    public int cardinality() {
+        return count;
+    }
+
+    /** Первая свободная клетка начиная с {@code from}, по кругу; -1, если занято всё. */
+    public int nextClearBit(int from) {
+        int cells = cells();
+        for (int i = 0, index = from; i < cells; ) {
+            long[] page = pages[index >> PAGE_BITS];
+            if (page == null) return index;
+            long word = ~page[(index >> 6) & (PAGE_WORDS - 1)] & (-1L << index);
+            int wordEnd = Math.min((index | 63) + 1, cells);
+            if (word != 0) {
+                int found = (index & ~63) + Long.numberOfTrailingZeros(word);
+                if (found < cells) return found;
+            }
+            i += wordEnd - index;
+            index = wordEnd == cells ? 0 : wordEnd;
+        }
+        return -1;
+    }
+
+    /** Занятые страницы в байтах — сколько поле держит в куче. */
+    public long footprint() {
+        long bytes = 0;
+        for (long[] page : pages) {
+            if (page != null) bytes += 8L * PAGE_WORDS;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,38 @@
+package com.battleship.common;
+
+import java.io.Serializable;
+
+/**
+ * Одно изменение состояния партии с точки зрения получателя.
+ * {@code checksum} — контрольная сумма досок получателя после применения.
+ */
+public class StateDelta implements Serializable {
+    public static final byte SHOT = 0;
+    public static final byte OPPONENT_SHOT = 1;
+    public static final byte STATE = 2;
+
+    public final int seq;
+    public final byte kind;
+    public final int row;
+    public final int col;
+    public final boolean hit;
+    public final GameState state;
+    public final int checksum;
+    /** Корабль, потопленный этим выстрелом, упакован как в {@link FleetGenerator}; -1 — нет. */
+    public final int sunk;
+
+    public StateDelta(int seq, byte kind, int row, int col, boolean hit, GameState state, int checksum) {
+        this(seq, kind, row, col, hit, state, checksum, -1);
+    }
+
+    public StateDelta(int seq, byte kind, int row, int col, boolean hit, GameState state, int checksum, int sunk) {
+        this.seq = seq;
+        this.kind = kind;
+        this.row = row;
+        this.col = col;
+        this.hit = hit;
+        this.state = state;
+        this.checksum = checksum;
+        this.sunk = sunk;
+    }
+}
@@ -0,0 +1,27 @@
+package com.battleship.common;
+
+import java.io.Serializable;
+
+/**
+ * Ответ на RESYNC_REQUEST: только те доски, чьи контрольные суммы
+ * не совпали у клиента, остальные элементы {@code boards} равны null.
+ * {@code sunk} — все потопленные корабли противника (позиции упакованы как
+ * в {@link FleetGenerator}); null — сервер их не прислал (версия ниже 4).
+ */
+public class SyncSnapshot implements Serializable {
+    public final int seq;
+    public final GameState state;
+    public final Board[] boards;
+    public final int[] sunk;
+
+    public SyncSnapshot(int seq, GameState state, Board[] boards) {
+        this(seq, state, boards, null);
+    }
+
+    public SyncSnapshot(int seq, GameState state, Board[] boards, int[] sunk) {
+        this.seq = seq;
+        this.state = state;
+        this.boards = boards;
+        this.sunk = sunk;
+    }
+}
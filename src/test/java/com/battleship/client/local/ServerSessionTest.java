@@ -0,0 +1,171 @@
+package com.battleship.client.local;
+
+import com.battleship.common.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerSessionTest {
+
+    private final Accounts accounts = new Accounts();
+    private final Sessions sessions = new Sessions();
+    private final LiveGames live = new LiveGames();
+
+    private ServerSession login(int version) {
+        accounts.register("игрок", "пароль");
+        ServerSession session = new ServerSession(accounts, sessions, live, null, version);
+        session.handle(new Message(MessageType.LOGIN, new String[]{"игрок", "пароль"}));
+        return session;
+    }
+
+    /** Новая партия с расставленным флотом игрока, как её присылает экран расстановки. */
+    private static Game place(ServerSession session) {
+        Game game = (Game) session.handle(new Message(MessageType.START_NEW_GAME)).get(0).getPayload();
+        for (int p : new FleetGenerator(1).next()) {
+            game.placePlayerShip(FleetGenerator.row(p), FleetGenerator.col(p),
+                    FleetGenerator.size(p), FleetGenerator.vertical(p));
+        }
+        game.state = GameState.PLAYER_TURN;
+        assertEquals(List.of(), session.handle(new Message(MessageType.PLACE_SHIPS, game)));
+        return game;
+    }
+
+    private static List<Message> shoot(ServerSession session, int row, int col) {
+        return session.handle(new Message(MessageType.SHOT, new int[]{row, col}));
+    }
+
+    private static List<StateDelta> deltas(List<Message> replies) {
+        List<StateDelta> deltas = new ArrayList<>();
+        for (Message msg : replies) {
+            if (msg.getType() == MessageType.STATE_DELTA) deltas.add((StateDelta) msg.getPayload());
+        }
+        return deltas;
+    }
+
+    @Test
+    void wholeGameAppliesOnTheClientWithoutGaps() {
+        ServerSession session = login(MessageCodec.VERSION);
+        Game game = place(session);
+        GameSync client = GameSync.forPlayer(game);
+        Message over = null;
+        for (int cell = 0; cell < Board.CELLS && over == null; cell++) {
+            if (game.computerHitsBoard.get(cell)) continue;
+            List<Message> replies = shoot(session, cell / Board.SIZE, cell % Board.SIZE);
+            for (Message msg : replies) {
+                switch (msg.getType()) {
+                    case STATE_DELTA -> assertEquals(GameSync.Result.APPLIED,
+                            client.apply((StateDelta) msg.getPayload()));
+                    case GAME_OVER -> over = msg;
+                    default -> fail("Лишний ответ: " + msg.getType());
+                }
+            }
+        }
+        assertNotNull(over);
+        // итоговое состояние приходит с последним выстрелом, а не отдельной догадкой клиента
+        assertEquals((boolean) over.getPayload() ? GameState.PLAYER_WON : GameState.COMPUTER_WON, client.state());
+    }
+
+    @Test
+    void sunkShipTravelsFromVersionFour() {
+        for (int version : new int[]{3, 4}) {
+            ServerSession session = login(version);
+            Game game = place(session);
+            Ship target = game.computerShips.get(0);
+            StateDelta last = null;
+            for (int[] cell : target.cells) {
+                List<StateDelta> deltas = deltas(shoot(session, cell[0], cell[1]));
+                assertEquals(1, deltas.size());
+                last = deltas.get(0);
+                assertTrue(last.hit);
+                if (cell != target.cells.get(target.cells.size() - 1)) {
+                    assertTrue(last.sunk < 0);
+                }
+            }
+            assertEquals(version >= 4 ? Rules.placement(target) : -1, last.sunk);
+        }
+    }
+
+    @Test
+    void firstVersionGetsPlainShotResults() {
+        ServerSession session = login(1);
+        Game game = place(session);
+        int[] cell = game.computerShips.get(0).cells.get(0);
+        List<Message> replies = shoot(session, cell[0], cell[1]);
+        assertEquals(1, replies.size());
+        assertEquals(MessageType.SHOT_RESULT, replies.get(0).getType());
+        assertArrayEquals(new int[]{cell[0], cell[1], 1}, (int[]) replies.get(0).getPayload());
+    }
+
+    @Test
+    void resumeReplaysOnlyMissedDeltas() {
+        accounts.register("игрок", "пароль");
+        ServerSession first = new ServerSession(accounts, sessions, live, null, MessageCodec.VERSION);
+        List<Message> login = first.handle(new Message(MessageType.LOGIN, new String[]{"игрок", "пароль"}));
+        String token = (String) login.get(1).getPayload();
+        Game game = place(first);
+        Ship target = game.computerShips.get(0);
+        List<StateDelta> sent = new ArrayList<>();
+        for (int[] cell : target.cells) sent.addAll(deltas(shoot(first, cell[0], cell[1])));
+
+        ServerSession second = new ServerSession(accounts, sessions, live, null, MessageCodec.VERSION);
+        List<Message> replies = second.handle(new Message(MessageType.RESUME, new String[]{token, "1"}));
+        assertEquals(MessageType.RESUME_OK, replies.get(0).getType());
+        assertArrayEquals(new int[]{sent.size()}, (int[]) replies.get(0).getPayload());
+        List<StateDelta> replayed = deltas(replies);
+        assertEquals(sent.size() - 1, replayed.size());
+        for (int i = 0; i < replayed.size(); i++) assertEquals(i + 2, replayed.get(i).seq);
+
+        assertEquals(MessageType.RESUME_FAIL,
+                second.handle(new Message(MessageType.RESUME, new String[]{"нет", "0"})).get(0).getType());
+    }
+
+    @Test
+    void resyncSendsOnlyDifferingBoardsAndSunkShips() {
+        ServerSession session = login(MessageCodec.VERSION);
+        Game game = place(session);
+        GameSync client = GameSync.forPlayer(game);
+        Ship target = game.computerShips.get(0);
+        for (int[] cell : target.cells) shoot(session, cell[0], cell[1]);
+
+        List<Message> replies = session.handle(new Message(MessageType.RESYNC_REQUEST, client.resyncRequest()));
+        SyncSnapshot snapshot = (SyncSnapshot) replies.get(0).getPayload();
+        assertNull(snapshot.boards[GameSync.MY_SHIPS]);
+        assertNotNull(snapshot.boards[GameSync.MY_SHOTS]);
+        assertArrayEquals(new int[]{Rules.placement(target)}, snapshot.sunk);
+
+        client.applySnapshot(snapshot);
+        assertEquals(target.cells.size(), client.lastSeq());
+        assertEquals(target.cells.size(), client.board(GameSync.MY_HITS).cardinality());
+    }
+
+    @Test
+    void shotsNeedAGame() {
+        ServerSession session = login(MessageCodec.VERSION);
+        assertEquals(MessageType.ERROR, shoot(session, 0, 0).get(0).getType());
+        ServerSession anonymous = new ServerSession(accounts, sessions, live, null, MessageCodec.VERSION);
+        assertEquals(MessageType.ERROR, anonymous.handle(new Message(MessageType.START_NEW_GAME)).get(0).getType());
+    }
+
+    @Test
+    void malformedPayloadsGetErrorsInsteadOfExceptions() {
+        ServerSession session = login(MessageCodec.VERSION);
+        place(session);
+        Object[] payloads = {null, "строка", new String[]{"одна"}, new String[]{"a", null}, new int[0], new int[]{1, 2, 3}};
+        for (Object payload : payloads) {
+            for (MessageType type : new MessageType[]{MessageType.REGISTER, MessageType.LOGIN, MessageType.PLACE_SHIPS,
+                    MessageType.CONTINUE_GAME, MessageType.SHOT, MessageType.RESYNC_REQUEST}) {
+                List<Message> replies = session.handle(new Message(type, payload));
+                assertEquals(MessageType.ERROR, replies.get(0).getType(), type + " " + payload);
+            }
+            assertEquals(MessageType.RESUME_FAIL,
+                    session.handle(new Message(MessageType.RESUME, payload)).get(0).getType());
+        }
+        String token = (String) login(MessageCodec.VERSION).handle(
+                new Message(MessageType.LOGIN, new String[]{"игрок", "пароль"})).get(1).getPayload();
+        assertEquals(MessageType.RESUME_FAIL,
+                session.handle(new Message(MessageType.RESUME, new String[]{token, "не число"})).get(0).getType());
+    }
+}
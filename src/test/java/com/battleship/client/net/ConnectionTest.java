@@ -0,0 +1,226 @@
+package com.battleship.client.net;
+
+import com.battleship.common.GameState;
+import com.battleship.common.Message;
+import com.battleship.common.MessageCodec;
+import com.battleship.common.MessageType;
+import com.battleship.common.StateDelta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionTest {
+
+    /** Транспорт в памяти: записанное до flush не видно «серверу», close обрывает чтение. */
+    private static final class FakeTransport implements Transport {
+        private static final Object DROPPED = new Object();
+
+        final BlockingQueue<Message> wire = new LinkedBlockingQueue<>();
+        final BlockingQueue<Object> inbox = new LinkedBlockingQueue<>();
+        private final List<Message> buffer = new ArrayList<>();
+        private volatile boolean closed;
+
+        FakeTransport reply(Message... messages) {
+            inbox.addAll(List.of(messages));
+            return this;
+        }
+
+        @Override
+        public void send(Message msg) throws IOException {
+            write(msg);
+            flush();
+        }
+
+        @Override
+        public synchronized void write(Message msg) throws IOException {
+            if (closed) throw new IOException("Закрыт");
+            buffer.add(msg);
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (closed) throw new IOException("Закрыт");
+            wire.addAll(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public Message receive() throws IOException {
+            try {
+                Object next = inbox.take();
+                if (next == DROPPED) {
+                    inbox.add(DROPPED);
+                    throw new IOException("Обрыв");
+                }
+                return (Message) next;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            inbox.add(DROPPED);
+        }
+
+        @Override
+        public boolean isBinary() {
+            return true;
+        }
+
+        @Override
+        public int version() {
+            return MessageCodec.VERSION;
+        }
+    }
+
+    private final BlockingQueue<FakeTransport> transports = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Message> received = new LinkedBlockingQueue<>();
+    private Connection connection;
+
+    private Connection connect() {
+        connection = new Connection(transports::take, Runnable::run);
+        connection.attach(received::add);
+        connection.start();
+        return connection;
+    }
+
+    @AfterEach
+    void close() {
+        if (connection != null) connection.close();
+    }
+
+    private static Message next(BlockingQueue<Message> queue) throws InterruptedException {
+        Message msg = queue.poll(5, TimeUnit.SECONDS);
+        assertNotNull(msg, "Сообщение не пришло");
+        return msg;
+    }
+
+    private static Message delta(int seq) {
+        return new Message(MessageType.STATE_DELTA,
+                new StateDelta(seq, StateDelta.SHOT, 0, 0, false, GameState.COMPUTER_TURN, 0));
+    }
+
+    /** Вход с токеном: после него соединение умеет продолжать сессию. */
+    private FakeTransport loggedIn() throws InterruptedException {
+        FakeTransport first = new FakeTransport();
+        transports.add(first);
+        connect().send(new Message(MessageType.LOGIN, new String[]{"игрок", "пароль"}));
+        assertEquals(MessageType.LOGIN, next(first.wire).getType());
+        first.reply(new Message(MessageType.LOGIN_SUCCESS, "игрок"), new Message(MessageType.SESSION_TOKEN, "t"));
+        assertEquals(MessageType.LOGIN_SUCCESS, next(received).getType());
+        return first;
+    }
+
+    @Test
+    void sendsInOrderAndReportsDelivery() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        transports.add(transport);
+        connect();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            done.add(connection.sendAsync(new Message(MessageType.SHOT, new int[]{i, 0})));
+        }
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(new int[]{i, 0}, (int[]) next(transport.wire).getPayload());
+        }
+        for (CompletableFuture<Void> future : done) future.get(5, TimeUnit.SECONDS);
+        assertEquals(MessageCodec.VERSION, connection.version());
+    }
+
+    @Test
+    void unansweredShotIsResentAfterResume() throws Exception {
+        FakeTransport first = loggedIn();
+        connection.send(new Message(MessageType.SHOT, new int[]{3, 4}));
+        assertEquals(MessageType.SHOT, next(first.wire).getType());
+
+        FakeTransport second = new FakeTransport().reply(new Message(MessageType.RESUME_OK, new int[]{0}));
+        transports.add(second);
+        first.close();
+        Message resume = next(second.wire);
+        assertEquals(MessageType.RESUME, resume.getType());
+        assertArrayEquals(new String[]{"t", "0"}, (String[]) resume.getPayload());
+        assertArrayEquals(new int[]{3, 4}, (int[]) next(second.wire).getPayload());
+    }
+
+    @Test
+    void shotTheServerAlreadyAppliedIsNotRepeated() throws Exception {
+        FakeTransport first = loggedIn();
+        connection.send(new Message(MessageType.SHOT, new int[]{3, 4}));
+        assertEquals(MessageType.SHOT, next(first.wire).getType());
+
+        // сервер успел записать дельту выстрела, но ответ потерялся вместе с подключением
+        FakeTransport second = new FakeTransport().reply(new Message(MessageType.RESUME_OK, new int[]{1}), delta(1));
+        transports.add(second);
+        first.close();
+        assertEquals(MessageType.RESUME, next(second.wire).getType());
+        assertEquals(MessageType.STATE_DELTA, next(received).getType());
+        connection.send(new Message(MessageType.LOBBY_ENTER));
+        assertEquals(MessageType.LOBBY_ENTER, next(second.wire).getType());
+    }
+
+    @Test
+    void answeredMessagesAreNotResent() throws Exception {
+        FakeTransport first = loggedIn();
+        connection.send(new Message(MessageType.SHOT, new int[]{3, 4}));
+        assertEquals(MessageType.SHOT, next(first.wire).getType());
+        first.reply(delta(1));
+        assertEquals(MessageType.STATE_DELTA, next(received).getType());
+
+        FakeTransport second = new FakeTransport().reply(new Message(MessageType.RESUME_OK, new int[]{1}));
+        transports.add(second);
+        first.close();
+        assertArrayEquals(new String[]{"t", "1"}, (String[]) next(second.wire).getPayload());
+        connection.send(new Message(MessageType.LOBBY_ENTER));
+        assertEquals(MessageType.LOBBY_ENTER, next(second.wire).getType());
+    }
+
+    @Test
+    void beforeLoginEachReplyAnswersOneRequest() throws Exception {
+        FakeTransport first = new FakeTransport();
+        transports.add(first);
+        connect();
+        connection.send(new Message(MessageType.REGISTER, new String[]{"игрок", "пароль"}));
+        connection.send(new Message(MessageType.LOGIN, new String[]{"игрок", "пароль"}));
+        assertEquals(MessageType.REGISTER, next(first.wire).getType());
+        assertEquals(MessageType.LOGIN, next(first.wire).getType());
+        first.reply(new Message(MessageType.REGISTER_SUCCESS, "ok"));
+        assertEquals(MessageType.REGISTER_SUCCESS, next(received).getType());
+
+        // без токена RESUME не шлётся: повторяется только вход, регистрация уже подтверждена
+        FakeTransport second = new FakeTransport();
+        transports.add(second);
+        first.close();
+        assertEquals(MessageType.LOGIN, next(second.wire).getType());
+        assertNull(second.wire.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void fullOutboxRefusesAndCloseFailsTheRest() throws Exception {
+        // без start() ничего не уходит: очередь только копится
+        connection = new Connection(transports::take, Runnable::run);
+        CompletableFuture<Void> queued = connection.sendAsync(new Message(MessageType.LOBBY_ENTER));
+        int accepted = 1;
+        while (connection.send(new Message(MessageType.LOBBY_ENTER))) accepted++;
+        assertEquals(Integer.getInteger("battleship.outboxCapacity", 256), accepted);
+        CompletableFuture<Void> refused = connection.sendAsync(new Message(MessageType.LOBBY_ENTER));
+        assertThrows(ExecutionException.class, () -> refused.get(5, TimeUnit.SECONDS));
+        assertFalse(queued.isDone());
+
+        connection.close();
+        assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertFalse(connection.send(new Message(MessageType.LOBBY_ENTER)));
+    }
+}
@@ -0,0 +1,56 @@
+package com.battleship.client.replay;
+
+import com.battleship.common.Game;
+import com.battleship.common.GameState;
+import com.battleship.common.GameSync;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+
+    @TempDir
+    Path dir;
+
+    private Path record(GameState result) {
+        System.setProperty("battleship.replays", dir.toString());
+        try {
+            Game game = new Game("игрок");
+            ReplayWriter writer = ReplayWriter.start(game.playerName, game.difficulty, GameSync.forPlayer(game));
+            assertNotNull(writer);
+            writer.record(true, 0, 0, false);
+            writer.record(false, 5, 5, true);
+            writer.finish(result);
+            return writer.path();
+        } finally {
+            System.clearProperty("battleship.replays");
+        }
+    }
+
+    @Test
+    void writtenGameReadsBack() throws IOException {
+        Replay replay = Replay.load(record(GameState.PLAYER_WON));
+        assertEquals(2, replay.moves());
+        assertTrue(replay.mine(0));
+        assertFalse(replay.mine(1));
+        assertTrue(replay.hit(1));
+        assertEquals(GameState.PLAYER_WON, replay.result);
+    }
+
+    @Test
+    void unknownResultIsCorrupt() throws IOException {
+        Path path = record(GameState.PLAYER_WON);
+        byte[] bytes = Files.readAllBytes(path);
+        int end = ReplayWriter.END | GameState.values().length + 1;
+        bytes[bytes.length - 2] = (byte) (end >>> 8);
+        bytes[bytes.length - 1] = (byte) end;
+        Files.write(path, bytes);
+        assertThrows(StreamCorruptedException.class, () -> Replay.load(path));
+    }
+}
@@ -0,0 +1,129 @@
+package com.battleship.client.save;
+
+import com.battleship.client.ai.OfflineGame;
+import com.battleship.common.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static OfflineGame newGame(String owner) {
+        Game game = new Game(owner);
+        for (int p : new FleetGenerator(1).next()) {
+            game.placePlayerShip(FleetGenerator.row(p), FleetGenerator.col(p),
+                    FleetGenerator.size(p), FleetGenerator.vertical(p));
+        }
+        game.state = GameState.PLAYER_TURN;
+        return new OfflineGame(game);
+    }
+
+    /** Стреляет по клеткам подряд, пока не сделает {@code shots} выстрелов или партия не кончится. */
+    private static void play(OfflineGame game, GameStore.Journal journal, int shots) {
+        Game g = game.getGame();
+        for (int cell = 0; cell < Board.CELLS && shots > 0 && !game.isOver(); cell++) {
+            if (g.computerHitsBoard.get(cell)) continue;
+            List<Message> results = game.playerShot(cell / Board.SIZE, cell % Board.SIZE);
+            journal.append(results);
+            shots--;
+        }
+    }
+
+    @Test
+    void continuedGameReplaysTheJournal() throws IOException {
+        GameStore store = new GameStore(dir);
+        OfflineGame game = newGame("игрок");
+        GameStore.Journal journal = store.create(game);
+        play(game, journal, 20);
+        journal.close();
+
+        GameStore reopened = new GameStore(dir);
+        SavedGame[] saves = reopened.list("игрок");
+        assertEquals(1, saves.length);
+        assertEquals(20, saves[0].shots);
+        assertEquals(0, reopened.list("другой").length);
+        assertNull(reopened.open(saves[0].id, "другой"));
+
+        GameStore.Journal continued = reopened.open(saves[0].id, "игрок");
+        assertNotNull(continued);
+        Game before = game.getGame(), after = continued.game().getGame();
+        assertEquals(before.computerHitsBoard, after.computerHitsBoard);
+        assertEquals(before.playerHitsBoard, after.playerHitsBoard);
+        assertEquals(GameState.PLAYER_TURN, after.state);
+        continued.close();
+    }
+
+    @Test
+    void finishedGameLeavesTheList() throws IOException {
+        GameStore store = new GameStore(dir);
+        OfflineGame game = newGame("игрок");
+        GameStore.Journal journal = store.create(game);
+        play(game, journal, Board.CELLS);
+        assertTrue(game.isOver());
+        assertEquals(0, store.list("игрок").length);
+        assertEquals(0, new GameStore(dir).list("игрок").length);
+    }
+
+    @Test
+    void indexIsCompactedDuringALongSession() throws IOException {
+        GameStore store = new GameStore(dir);
+        Path index = dir.resolve("index.bin");
+        OfflineGame kept = newGame("игрок");
+        GameStore.Journal keptJournal = store.create(kept);
+        long start = Files.size(index);
+
+        store.create(newGame("игрок")).discard();
+        long pair = Files.size(index) - start;
+        int games = 1500;
+        for (int i = 1; i < games; i++) store.create(newGame("игрок")).discard();
+        // без сжатия было бы games * pair; порог — около тысячи записей, то есть ~500 пар
+        assertTrue(Files.size(index) < 600 * pair, "index.bin не сжимался: " + Files.size(index));
+
+        play(kept, keptJournal, 5);
+        keptJournal.close();
+        SavedGame[] saves = new GameStore(dir).list("игрок");
+        assertEquals(1, saves.length);
+        assertEquals(5, saves[0].shots);
+    }
+
+    @Test
+    void reopeningDoesNotRewriteAHealthyIndex() throws IOException {
+        GameStore store = new GameStore(dir);
+        for (int i = 0; i < 10; i++) {
+            GameStore.Journal journal = store.create(newGame("игрок"));
+            if (i % 2 == 0) journal.discard();
+            else journal.close();
+        }
+        Path index = dir.resolve("index.bin");
+        byte[] before = Files.readAllBytes(index);
+        assertEquals(5, new GameStore(dir).list("игрок").length);
+        assertArrayEquals(before, Files.readAllBytes(index));
+    }
+
+    @Test
+    void tornIndexRecordIsDropped() throws IOException {
+        GameStore store = new GameStore(dir);
+        store.create(newGame("игрок")).close();
+        Path index = dir.resolve("index.bin");
+        byte[] healthy = Files.readAllBytes(index);
+        // обрыв посреди записи «партия обновлена»
+        Files.write(index, new byte[]{1, 0, 0}, StandardOpenOption.APPEND);
+
+        GameStore reopened = new GameStore(dir);
+        assertEquals(1, reopened.list("игрок").length);
+        assertArrayEquals(healthy, Files.readAllBytes(index));
+        // новые записи после сжатия ложатся на чистую границу
+        reopened.create(newGame("игрок")).close();
+        assertEquals(2, new GameStore(dir).list("игрок").length);
+    }
+}
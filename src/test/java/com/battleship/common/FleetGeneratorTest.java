@@ -0,0 +1,83 @@
+package com.battleship.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetGeneratorTest {
+
+    @Test
+    void layoutsFollowTheRules() {
+        FleetGenerator generator = new FleetGenerator(3);
+        for (int n = 0; n < 1000; n++) {
+            int[] layout = generator.next();
+            assertEquals(Rules.FLEET.length, layout.length);
+            Board board = new Board();
+            for (int i = 0; i < layout.length; i++) {
+                int p = layout[i];
+                assertEquals(Rules.FLEET[i], FleetGenerator.size(p));
+                assertTrue(Rules.canPlace(board, FleetGenerator.row(p), FleetGenerator.col(p),
+                        FleetGenerator.size(p), FleetGenerator.vertical(p)), "расстановка " + n);
+                Rules.place(board, new ArrayList<>(), FleetGenerator.row(p), FleetGenerator.col(p),
+                        FleetGenerator.size(p), FleetGenerator.vertical(p));
+            }
+            Board occupied = generator.occupied();
+            assertEquals(board.low(), occupied.low());
+            assertEquals(board.high(), occupied.high());
+        }
+    }
+
+    @Test
+    void generateBoardsDependsOnlyOnSeed() {
+        long[] first = FleetGenerator.generateBoards(10_000, 5);
+        assertArrayEquals(first, FleetGenerator.generateBoards(10_000, 5));
+        for (int i = 0; i < 10_000; i++) {
+            int cells = Long.bitCount(first[2 * i]) + Long.bitCount(first[2 * i + 1]);
+            assertEquals(20, cells);
+        }
+    }
+
+    /** Граница, на которой держится равномерность однопалубников: ни одна расстановка её не превышает. */
+    @Test
+    void largeShipsNeverLeaveMoreThanMaxFree() {
+        List<long[]>[] masks = new List[Rules.MAX_SHIP + 1];
+        for (int size = 2; size <= Rules.MAX_SHIP; size++) {
+            masks[size] = new ArrayList<>();
+            for (int v = 0; v < 2; v++) {
+                for (int cell = 0; cell < Board.CELLS; cell++) {
+                    Board ship = Rules.shipMask(cell / Board.SIZE, cell % Board.SIZE, size, v == 1);
+                    if (ship == null) continue;
+                    Board halo = Rules.haloMask(cell / Board.SIZE, cell % Board.SIZE, size, v == 1);
+                    masks[size].add(new long[]{ship.low(), ship.high(), halo.low(), halo.high()});
+                }
+            }
+        }
+        int large = 0;
+        while (Rules.FLEET[large] > 1) large++;
+        int[] fleet = Arrays.copyOf(Rules.FLEET, large);
+        assertEquals(0, countTighter(masks, fleet, 0, 0, 0, 0, Board.CELLS - FleetGenerator.MAX_FREE - 1));
+    }
+
+    /** Расстановки кораблей fleet[k..], у которых ореолы закрывают не больше limit клеток. */
+    private static long countTighter(List<long[]>[] masks, int[] fleet, int k, int from,
+                                     long blockedLo, long blockedHi, int limit) {
+        if (k == fleet.length) return 1;
+        int size = fleet[k];
+        // одинаковые корабли перебираются по возрастанию номера позиции
+        int start = k > 0 && fleet[k - 1] == size ? from + 1 : 0;
+        long found = 0;
+        for (int i = start; i < masks[size].size(); i++) {
+            long[] m = masks[size].get(i);
+            if ((m[0] & blockedLo) != 0 || (m[1] & blockedHi) != 0) continue;
+            long lo = blockedLo | m[2], hi = blockedHi | m[3];
+            // ореолы только растут, так что перебор можно отсечь сразу
+            if (Long.bitCount(lo) + Long.bitCount(hi) > limit) continue;
+            found += countTighter(masks, fleet, k + 1, i, lo, hi, limit);
+        }
+        return found;
+    }
+}
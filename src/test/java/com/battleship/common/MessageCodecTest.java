@@ -0,0 +1,175 @@
+package com.battleship.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCodecTest {
+
+    private static Message roundTrip(Message msg) throws IOException {
+        Message back = MessageCodec.decode(MessageCodec.encode(msg));
+        assertEquals(msg.getType(), back.getType());
+        return back;
+    }
+
+    @Test
+    void simplePayloads() throws IOException {
+        assertNull(roundTrip(new Message(MessageType.LOBBY_ENTER)).getPayload());
+        assertEquals("игрок", roundTrip(new Message(MessageType.LOGIN, "игрок")).getPayload());
+        assertArrayEquals(new String[]{"a", "б"},
+                (String[]) roundTrip(new Message(MessageType.LOGIN, new String[]{"a", "б"})).getPayload());
+        assertEquals(Boolean.TRUE, roundTrip(new Message(MessageType.SHOT_RESULT, true)).getPayload());
+    }
+
+    @Test
+    void intsPickTheNarrowestForm() throws IOException {
+        int[] small = {0, 9, 255};
+        int[] large = {-1, 256, Integer.MAX_VALUE};
+        assertArrayEquals(small, (int[]) roundTrip(new Message(MessageType.SHOT, small)).getPayload());
+        assertArrayEquals(large, (int[]) roundTrip(new Message(MessageType.SHOT, large)).getPayload());
+        assertTrue(MessageCodec.encode(new Message(MessageType.SHOT, small)).length
+                < MessageCodec.encode(new Message(MessageType.SHOT, large)).length);
+        int[] empty = {};
+        assertArrayEquals(empty, (int[]) roundTrip(new Message(MessageType.SHOT, empty)).getPayload());
+    }
+
+    @Test
+    void gameKeepsBoardsAndShips() throws IOException {
+        Game game = new Game("bench");
+        game.difficulty = "HARD";
+        game.shootAtComputer(3, 4);
+        Game back = (Game) roundTrip(new Message(MessageType.GAME_STATE, game)).getPayload();
+        assertEquals(game.playerName, back.playerName);
+        assertEquals(game.difficulty, back.difficulty);
+        assertEquals(game.state, back.state);
+        assertEquals(game.computerBoard, back.computerBoard);
+        assertEquals(game.computerHitsBoard, back.computerHitsBoard);
+        assertEquals(game.computerShips.size(), back.computerShips.size());
+    }
+
+    @Test
+    void deltaWithAndWithoutSunk() throws IOException {
+        StateDelta plain = new StateDelta(7, StateDelta.SHOT, 9, 0, true, GameState.PLAYER_TURN, 0xCAFEBABE);
+        StateDelta back = (StateDelta) roundTrip(new Message(MessageType.STATE_DELTA, plain)).getPayload();
+        assertEquals(7, back.seq);
+        assertEquals(9, back.row);
+        assertEquals(0, back.col);
+        assertTrue(back.hit);
+        assertEquals(0xCAFEBABE, back.checksum);
+        assertTrue(back.sunk < 0);
+
+        int placement = 3 << 8 | 0x80 | Board.index(2, 5);
+        StateDelta sunk = new StateDelta(8, StateDelta.SHOT, 4, 5, true, GameState.PLAYER_TURN, 1, placement);
+        assertEquals(placement, ((StateDelta) roundTrip(new Message(MessageType.STATE_DELTA, sunk)).getPayload()).sunk);
+    }
+
+    @Test
+    void snapshotKeepsMissingBoardsAndSunk() throws IOException {
+        Board ships = new Board();
+        ships.set(0, 0);
+        ships.set(9, 9);
+        Board[] boards = {ships, null, new Board(), null};
+        SyncSnapshot plain = new SyncSnapshot(12, GameState.COMPUTER_TURN, boards);
+        SyncSnapshot back = (SyncSnapshot) roundTrip(new Message(MessageType.RESYNC, plain)).getPayload();
+        assertEquals(12, back.seq);
+        assertEquals(GameState.COMPUTER_TURN, back.state);
+        assertArrayEquals(boards, back.boards);
+        assertNull(back.sunk);
+
+        int[] sunk = {1 << 8 | Board.index(9, 9), 4 << 8 | Board.index(0, 6)};
+        SyncSnapshot withSunk = new SyncSnapshot(13, GameState.PLAYER_TURN, boards, sunk);
+        assertArrayEquals(sunk,
+                ((SyncSnapshot) roundTrip(new Message(MessageType.RESYNC, withSunk)).getPayload()).sunk);
+    }
+
+    @Test
+    void savesAndLiveGames() throws IOException {
+        SavedGame[] saves = {new SavedGame(1, "игрок", "EASY", 1_700_000_000_000L, 40, 12, 3)};
+        SavedGame save = ((SavedGame[]) roundTrip(new Message(MessageType.GAME_LIST, saves)).getPayload())[0];
+        assertEquals("игрок", save.owner);
+        assertEquals(1_700_000_000_000L, save.updatedAt);
+        assertEquals(12, save.hits);
+
+        Board[] boards = new Board[GameSync.BOARDS];
+        for (int i = 0; i < boards.length; i++) boards[i] = new Board();
+        boards[GameSync.MY_SHOTS].set(42);
+        LiveGame[] live = {new LiveGame(5, "p", GameState.PLAYER_TURN, boards), LiveGame.ended(6)};
+        LiveGame[] back = (LiveGame[]) roundTrip(new Message(MessageType.SPECTATE, live)).getPayload();
+        assertArrayEquals(boards, back[0].boards);
+        assertTrue(back[1].isEnded());
+        assertEquals(6, back[1].id);
+    }
+
+    @Test
+    void framesCarryTheirLength() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        MessageCodec.writeFrame(out, new Message(MessageType.LOGIN, "a"));
+        MessageCodec.writeFrame(out, new Message(MessageType.LOBBY_ENTER));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals("a", MessageCodec.readFrame(in).getPayload());
+        assertEquals(MessageType.LOBBY_ENTER, MessageCodec.readFrame(in).getType());
+    }
+
+    @Test
+    void rejectsBadFrameLength() {
+        for (int length : new int[]{0, -1, MessageCodec.MAX_FRAME + 1}) {
+            byte[] frame = {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length};
+            assertThrows(StreamCorruptedException.class,
+                    () -> MessageCodec.readFrame(new DataInputStream(new ByteArrayInputStream(frame))));
+        }
+    }
+
+    @Test
+    void rejectsCorruptBodies() throws IOException {
+        assertThrows(StreamCorruptedException.class, () -> MessageCodec.decode(new byte[]{(byte) 0xFF, 0}));
+        assertThrows(StreamCorruptedException.class, () -> MessageCodec.decode(new byte[]{0, 99}));
+
+        // клетка за пределами поля
+        byte[] delta = MessageCodec.encode(new Message(MessageType.STATE_DELTA,
+                new StateDelta(1, StateDelta.SHOT, 0, 0, false, GameState.PLAYER_TURN, 0)));
+        delta[1 + 1 + 4 + 1] = (byte) Board.CELLS;
+        assertThrows(StreamCorruptedException.class, () -> MessageCodec.decode(delta));
+
+        // корабль, выходящий за край поля
+        byte[] sunk = MessageCodec.encode(new Message(MessageType.STATE_DELTA,
+                new StateDelta(1, StateDelta.SHOT, 0, 0, true, GameState.PLAYER_TURN, 0, 1 << 8)));
+        int overEdge = 4 << 8 | Board.index(0, 8);
+        sunk[sunk.length - 2] = (byte) (overEdge >>> 8);
+        sunk[sunk.length - 1] = (byte) overEdge;
+        assertThrows(StreamCorruptedException.class, () -> MessageCodec.decode(sunk));
+
+        assertThrows(IOException.class, () -> MessageCodec.decode(new byte[]{0, 1}));
+    }
+
+    @Test
+    void shipsLongerThanTheFleetAllowsAreRefused() throws IOException {
+        Game game = new Game("bench");
+        Ship longShip = new Ship(Rules.MAX_SHIP + 1);
+        for (int col = 0; col < longShip.size; col++) longShip.cells.add(new int[]{0, col});
+        game.playerShips.add(longShip);
+        assertThrows(IOException.class, () -> MessageCodec.encode(new Message(MessageType.GAME_STATE, game)));
+
+        // последний корабль противника: размер, вертикаль, клетка носа, попадания
+        byte[] body = MessageCodec.encode(new Message(MessageType.GAME_STATE, new Game("bench")));
+        body[body.length - 4] = (byte) (Rules.MAX_SHIP + 1);
+        body[body.length - 3] = 0;
+        body[body.length - 2] = 0;
+        assertThrows(StreamCorruptedException.class, () -> MessageCodec.decode(body));
+    }
+
+    @Test
+    void refusesWhatCannotBeFramed() {
+        assertThrows(IOException.class,
+                () -> MessageCodec.encode(new Message(MessageType.LOGIN, new String[256])));
+        assertThrows(IOException.class,
+                () -> MessageCodec.encode(new Message(MessageType.LOGIN, new Object())));
+    }
+}